@@ -2,8 +2,10 @@ package fr.irun.testy.core.extensions;
 
 import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.Extension;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
@@ -41,7 +43,8 @@ import java.util.List;
  * </pre>
  */
 public final class ChainedExtension implements
-        BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver {
+        BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
 
     private final Extension[] extensions;
 
@@ -87,6 +90,25 @@ public final class ChainedExtension implements
         }
     }
 
+    @Override
+    public void beforeTestExecution(ExtensionContext context) throws Exception {
+        for (Extension ex : extensions) {
+            if (ex instanceof BeforeTestExecutionCallback) {
+                ((BeforeTestExecutionCallback) ex).beforeTestExecution(context);
+            }
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws Exception {
+        for (int i = extensions.length - 1; i >= 0; i--) {
+            Extension ex = extensions[i];
+            if (ex instanceof AfterTestExecutionCallback) {
+                ((AfterTestExecutionCallback) ex).afterTestExecution(context);
+            }
+        }
+    }
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
         for (Extension ex : extensions) {
@@ -4,7 +4,8 @@ import org.junit.jupiter.api.extension.*;
 
 import java.util.List;
 
-public class DummyExtension implements BeforeEachCallback, BeforeAllCallback, AfterEachCallback, AfterAllCallback, ParameterResolver {
+public class DummyExtension implements BeforeEachCallback, BeforeAllCallback, AfterEachCallback, AfterAllCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
 
     private final List<String> calls;
     private final String extId;
@@ -36,6 +37,16 @@ public class DummyExtension implements BeforeEachCallback, BeforeAllCallback, Af
         calls.add(extId + "_afterEach");
     }
 
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        calls.add(extId + "_beforeTestExecution");
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        calls.add(extId + "_afterTestExecution");
+    }
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
         calls.add(extId + "_supportsParameter");
@@ -32,6 +32,8 @@ class ChainedExtensionTest {
                 "inner_beforeAll",
                 "outer_beforeEach",
                 "inner_beforeEach",
+                "outer_beforeTestExecution",
+                "inner_beforeTestExecution",
                 "outer_supportsParameter",
                 "outer_resolveParameter");
     }
@@ -43,8 +45,12 @@ class ChainedExtensionTest {
                 "inner_beforeAll",
                 "outer_beforeEach",
                 "inner_beforeEach",
+                "outer_beforeTestExecution",
+                "inner_beforeTestExecution",
                 "outer_supportsParameter",
                 "outer_resolveParameter",
+                "inner_afterTestExecution",
+                "outer_afterTestExecution",
                 "inner_afterEach",
                 "outer_afterEach");
     }
@@ -0,0 +1,214 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.model.CatalogReset;
+import fr.irun.testy.jooq.model.DatabaseTraceLevel;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of identical H2 catalogs, migrated in background and leased to the test classes.
+ * <p>
+ * A first database is migrated with Flyway, then exported with {@code SCRIPT} to create the others without running
+ * the migrations again. The catalogs become available as soon as they are created.
+ * </p>
+ * <p>
+ * The pool is stored in the root context of JUnit and closed at the end of the test plan.
+ * </p>
+ */
+final class CatalogPool implements CloseableResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogPool.class);
+    private static final String FLYWAY_HISTORY_TABLE = "flyway_schema_history";
+    private static final long POLL_MILLIS = 100;
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
+    private final String catalog;
+    private final String databasePrefix;
+    private final Location location;
+    private final ExecutorService executor;
+    private final CompletableFuture<List<String>> template;
+    private final BlockingQueue<JdbcDataSource> available = new LinkedBlockingQueue<>();
+    private final List<JdbcDataSource> created = new CopyOnWriteArrayList<>();
+    private final AtomicInteger alive;
+
+    CatalogPool(String catalog, Location location, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool needs at least one catalog !");
+        }
+        this.catalog = catalog;
+        // Unique databases by pool, the shutdown of a pool must not close the catalogs of another one
+        this.databasePrefix = "mem:" + catalog + "_pool" + POOL_IDS.incrementAndGet() + '_';
+        this.location = location;
+        this.alive = new AtomicInteger(size);
+        this.executor = Executors.newFixedThreadPool(Math.min(size, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-pool-" + catalog);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.template = CompletableFuture.supplyAsync(this::migrateTemplate, executor);
+        for (int i = 1; i < size; i++) {
+            int index = i;
+            template.thenAcceptAsync(script -> createFromTemplate(index, script), executor)
+                    .exceptionally(e -> {
+                        LOGGER.warn("Unable to create pooled catalog {}: {}", catalog, e.getMessage());
+                        alive.decrementAndGet();
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Wait for an available catalog.
+     *
+     * @return The DataSource of the leased catalog.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    JdbcDataSource lease() throws InterruptedException {
+        while (true) {
+            JdbcDataSource dataSource = available.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (dataSource != null) {
+                return dataSource;
+            }
+            if (template.isCompletedExceptionally()) {
+                template.join();
+            }
+            if (alive.get() <= 0) {
+                throw new IllegalStateException("No more catalog in the pool " + catalog + " !");
+            }
+        }
+    }
+
+    /**
+     * Reset the catalog in background and make it available again.
+     *
+     * @param dataSource The leased catalog.
+     * @param reset      The reset to apply.
+     */
+    void release(JdbcDataSource dataSource, CatalogReset reset) {
+        executor.execute(() -> {
+            try {
+                reset(dataSource, reset);
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to {} pooled catalog {}: {}", reset, catalog, e.getMessage());
+                try {
+                    reset(dataSource, CatalogReset.RESTORE_TEMPLATE);
+                } catch (SQLException restoreFailure) {
+                    LOGGER.warn("Pooled catalog {} discarded: {}", catalog, restoreFailure.getMessage());
+                    alive.decrementAndGet();
+                    return;
+                }
+            }
+            available.offer(dataSource);
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (JdbcDataSource dataSource : created) {
+            try (Connection conn = dataSource.getConnection();
+                 Statement statement = conn.createStatement()) {
+                statement.execute("SHUTDOWN");
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to shutdown pooled catalog {}: {}", catalog, e.getMessage());
+            }
+        }
+    }
+
+    private List<String> migrateTemplate() {
+        JdbcDataSource dataSource = newDataSource(0);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(catalog)
+                .placeholderReplacement(false)
+                .locations(location)
+                .load()
+                .migrate();
+
+        List<String> script;
+        try {
+            script = H2Scripts.export(dataSource, catalog);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to export pooled catalog " + catalog, e);
+        }
+
+        available.offer(dataSource);
+        return script;
+    }
+
+    private void createFromTemplate(int index, List<String> script) {
+        JdbcDataSource dataSource = newDataSource(index);
+        try {
+            H2Scripts.restore(dataSource, catalog, script);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to create pooled catalog " + catalog, e);
+        }
+        available.offer(dataSource);
+    }
+
+    private JdbcDataSource newDataSource(int index) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(WithInMemoryDatasource.databaseUrl(
+                databasePrefix + index, catalog, DatabaseTraceLevel.OFF, true));
+        created.add(dataSource);
+        return dataSource;
+    }
+
+    private void reset(DataSource dataSource, CatalogReset reset) throws SQLException {
+        if (reset == CatalogReset.RESTORE_TEMPLATE) {
+            H2Scripts.restore(dataSource, catalog, template.join());
+            return;
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            List<String> tables = listTables(conn);
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                for (String table : tables) {
+                    statement.execute("TRUNCATE TABLE \"" + catalog + "\".\"" + table + "\" RESTART IDENTITY");
+                }
+            } finally {
+                statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+    }
+
+    private List<String> listTables(Connection conn) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (PreparedStatement statement = conn.prepareStatement("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'TABLE'")) {
+            statement.setString(1, catalog);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    if (!FLYWAY_HISTORY_TABLE.equals(rs.getString(1))) {
+                        tables.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+}
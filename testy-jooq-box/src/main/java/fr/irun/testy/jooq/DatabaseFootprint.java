@@ -0,0 +1,97 @@
+package fr.irun.testy.jooq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Approximate size of an H2 catalog, reported at teardown to find the test classes which bloat the heap.
+ * <p>
+ * The rows are the estimations maintained by H2 for each table. The pages are only known for the file based
+ * storages, and are {@code -1} for the in-memory databases.
+ * </p>
+ */
+final class DatabaseFootprint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseFootprint.class);
+
+    final int tables;
+    final long rows;
+    final long pages;
+    final long pageSize;
+
+    private DatabaseFootprint(int tables, long rows, long pages, long pageSize) {
+        this.tables = tables;
+        this.rows = rows;
+        this.pages = pages;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Measure the size of the catalog.
+     *
+     * @param dataSource The DataSource of the database.
+     * @param catalog    The schema to measure.
+     * @return The footprint of the catalog.
+     * @throws SQLException if H2 cannot be queried.
+     */
+    static DatabaseFootprint measure(DataSource dataSource, String catalog) throws SQLException {
+        int tables = 0;
+        long rows = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(
+                    "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES "
+                            + "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'TABLE'")) {
+                statement.setString(1, catalog);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        tables++;
+                        rows += rs.getLong(1);
+                    }
+                }
+            }
+
+            long pages = -1;
+            long pageSize = -1;
+            try (Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT NAME, VALUE FROM INFORMATION_SCHEMA.SETTINGS "
+                         + "WHERE NAME IN ('info.PAGE_COUNT', 'info.PAGE_SIZE')")) {
+                while (rs.next()) {
+                    long value = Long.parseLong(rs.getString(2));
+                    if ("info.PAGE_COUNT".equals(rs.getString(1))) {
+                        pages = value;
+                    } else {
+                        pageSize = value;
+                    }
+                }
+            }
+            return new DatabaseFootprint(tables, rows, pages, pageSize);
+        }
+    }
+
+    /**
+     * Log the footprint of the catalog with the heap released by its teardown.
+     *
+     * @param catalog      The measured catalog.
+     * @param heapReleased The bytes of heap released by the teardown, negative if unknown.
+     */
+    void log(String catalog, long heapReleased) {
+        StringBuilder report = new StringBuilder()
+                .append("H2 catalog ").append(catalog).append(": ")
+                .append(tables).append(" tables, ")
+                .append(rows).append(" rows");
+        if (pages >= 0) {
+            report.append(", ").append(pages).append(" pages (")
+                    .append(pages * pageSize / 1024).append(" KB)");
+        }
+        if (heapReleased >= 0) {
+            report.append(", ~").append(heapReleased / 1024).append(" KB heap released");
+        }
+        LOGGER.info("{}", report);
+    }
+}
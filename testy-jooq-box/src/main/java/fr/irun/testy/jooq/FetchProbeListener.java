@@ -0,0 +1,90 @@
+package fr.irun.testy.jooq;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteType;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * jOOQ listener feeding the {@link FetchStats} of the running test.
+ * <p>
+ * jOOQ notifies the start and the end of a {@code Result} only when the rows are materialized, the rows read from a
+ * cursor only notify the start and the end of each record. The fetch size set by jOOQ on the statement is compared
+ * with the default fetch size of the driver.
+ * </p>
+ */
+final class FetchProbeListener extends DefaultExecuteListener {
+    private static final String D_SQL = FetchProbeListener.class.getName() + ".sql";
+
+    private final transient HeapWatermark heap = new HeapWatermark();
+    private final transient AtomicReference<FetchStats> current = new AtomicReference<>(new FetchStats(heap));
+    private transient volatile Integer defaultFetchSize;
+
+    /**
+     * Start recording fetches for a new test.
+     *
+     * @return The statistics recorded from now on.
+     */
+    FetchStats reset() {
+        FetchStats stats = new FetchStats(heap);
+        current.set(stats);
+        return stats;
+    }
+
+    /**
+     * Start measuring the heap high watermark, and forget the fetches of the {@code BeforeEach} callbacks.
+     */
+    void start() {
+        current.get().clear();
+        heap.start();
+    }
+
+    void stop() {
+        heap.stop();
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        if (ctx.type() != ExecuteType.READ || ctx.sql() == null || ctx.statement() == null) {
+            return;
+        }
+        try {
+            int fetchSize = ctx.statement().getFetchSize();
+            current.get().recordExecution(ctx.sql(), fetchSize, fetchSize != defaultFetchSize(ctx));
+            ctx.data(D_SQL, ctx.sql());
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read the fetch size", e);
+        }
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        Object sql = ctx.data(D_SQL);
+        if (sql != null) {
+            current.get().recordRow((String) sql);
+        }
+    }
+
+    @Override
+    public void resultEnd(ExecuteContext ctx) {
+        Object sql = ctx.data(D_SQL);
+        if (sql != null && ctx.result() != null) {
+            current.get().recordResult((String) sql, ctx.result().size());
+        }
+    }
+
+    private int defaultFetchSize(ExecuteContext ctx) throws SQLException {
+        if (defaultFetchSize == null) {
+            // The JDBC connection is unwrapped, closing a statement of the jOOQ connection would release it
+            try (Statement statement = ctx.connection().unwrap(Connection.class).createStatement()) {
+                defaultFetchSize = statement.getFetchSize();
+            }
+        }
+        return defaultFetchSize;
+    }
+}
@@ -0,0 +1,163 @@
+package fr.irun.testy.jooq;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Rows fetched by the SELECT of the current test, recorded by {@link WithDslContext} to check that large results are
+ * streamed.
+ * <p>
+ * Enabled with {@link WithDslContext.WithDslContextBuilder#probeFetches(boolean)}, this object can be injected as
+ * parameter of test methods:
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_export_all_jedis(FetchStats fetches) {
+ *         tested.exportAll().blockLast();
+ *
+ *         fetches.assertStreamed();
+ *         fetches.assertMaxHeapGrowth(50_000_000);
+ *     }
+ * </code></pre>
+ * <p>
+ * A row is materialized when it is loaded in a jOOQ {@code Result}, by {@code fetch()} or {@code fetchNext(n)}. It
+ * is streamed when it is read one by one from a {@code Cursor}, by {@code fetchLazy()}, {@code fetchStream()} or a
+ * {@code Publisher}. A streamed query shall also set an explicit fetch size, otherwise most JDBC drivers, as MySQL,
+ * load the whole result in memory before the first row is read.
+ * </p>
+ */
+public final class FetchStats {
+    /**
+     * Count of rows from which a query is expected to stream its result.
+     */
+    public static final long DEFAULT_STREAMING_THRESHOLD = 1_000;
+
+    private final Map<String, QueryFetch> queries = new LinkedHashMap<>();
+    private final HeapWatermark heap;
+
+    FetchStats(HeapWatermark heap) {
+        this.heap = heap;
+    }
+
+    synchronized void clear() {
+        queries.clear();
+    }
+
+    synchronized void recordExecution(String sql, int fetchSize, boolean isExplicitFetchSize) {
+        QueryFetch query = queries.computeIfAbsent(sql, s -> new QueryFetch());
+        query.fetchSize = fetchSize;
+        query.isExplicitFetchSize = isExplicitFetchSize;
+    }
+
+    synchronized void recordRow(String sql) {
+        QueryFetch query = queries.get(sql);
+        if (query != null) {
+            query.rows++;
+        }
+    }
+
+    synchronized void recordResult(String sql, int size) {
+        QueryFetch query = queries.get(sql);
+        if (query != null) {
+            query.materializedRows += size;
+            query.largestResult = Math.max(query.largestResult, size);
+        }
+    }
+
+    /**
+     * @return The count of rows fetched during the test.
+     */
+    public synchronized long rowsFetched() {
+        return queries.values().stream().mapToLong(q -> q.rows).sum();
+    }
+
+    /**
+     * @return The count of rows loaded in jOOQ {@code Result} during the test.
+     */
+    public synchronized long rowsMaterialized() {
+        return queries.values().stream().mapToLong(q -> q.materializedRows).sum();
+    }
+
+    /**
+     * @return The count of rows read one by one from a cursor during the test.
+     */
+    public synchronized long rowsStreamed() {
+        return rowsFetched() - rowsMaterialized();
+    }
+
+    /**
+     * The heap high watermark is the maximum heap used after a garbage collection during the test, or the peak heap
+     * usage when no collection occurred, minus the heap used after a garbage collection at the start of the test. It
+     * is an upper bound of the memory retained by the test.
+     *
+     * @return The growth of the heap during the test, in bytes.
+     */
+    public long heapGrowth() {
+        return heap.current();
+    }
+
+    /**
+     * Check that the queries fetching more than {@link #DEFAULT_STREAMING_THRESHOLD} rows stream their result.
+     *
+     * @throws AssertionError if a large result was materialized or fetched without fetch size.
+     */
+    public void assertStreamed() {
+        assertStreamed(DEFAULT_STREAMING_THRESHOLD);
+    }
+
+    /**
+     * Check that the queries fetching more than {@code threshold} rows stream their result with an explicit fetch
+     * size, and never load more than {@code threshold} rows in a jOOQ {@code Result}.
+     *
+     * @param threshold The count of rows from which a query shall stream its result.
+     * @throws AssertionError if a large result was materialized or fetched without fetch size.
+     */
+    public synchronized void assertStreamed(long threshold) {
+        Map<String, String> violations = new LinkedHashMap<>();
+        queries.forEach((sql, query) -> {
+            if (query.largestResult > threshold) {
+                violations.put(sql, query.largestResult + " rows materialized in a Result");
+            } else if (query.rows > threshold && !query.isExplicitFetchSize) {
+                violations.put(sql, query.rows + " rows fetched with the default fetch size " + query.fetchSize);
+            }
+        });
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Results above " + threshold + " rows not streamed:" + System.lineSeparator()
+                    + violations.entrySet().stream()
+                    .map(e -> "  " + e.getValue() + ": " + e.getKey())
+                    .collect(Collectors.joining(System.lineSeparator())));
+        }
+    }
+
+    /**
+     * Check the heap high watermark of the test.
+     *
+     * @param maxBytes The maximum growth of the heap during the test.
+     * @throws AssertionError if the heap grew more.
+     * @see #heapGrowth()
+     */
+    public synchronized void assertMaxHeapGrowth(long maxBytes) {
+        long heapGrowth = heapGrowth();
+        if (heapGrowth > maxBytes) {
+            throw new AssertionError(String.format("Expected a heap growth of at most %d bytes but was %d bytes for %d rows fetched, %d materialized",
+                    maxBytes, heapGrowth, rowsFetched(), rowsMaterialized()));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FetchStats{rowsFetched=" + rowsFetched()
+                + ", rowsMaterialized=" + rowsMaterialized()
+                + ", heapGrowth=" + heapGrowth()
+                + '}';
+    }
+
+    private static final class QueryFetch {
+        private int fetchSize;
+        private boolean isExplicitFetchSize;
+        private long rows;
+        private long materializedRows;
+        private long largestResult;
+    }
+}
@@ -0,0 +1,57 @@
+package fr.irun.testy.jooq;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copy H2 catalogs from a database to another with the {@code SCRIPT} command.
+ */
+final class H2Scripts {
+    private H2Scripts() {
+    }
+
+    /**
+     * Export the objects and the data of a catalog.
+     *
+     * @param dataSource The source database.
+     * @param catalog    The exported schema.
+     * @return The SQL statements creating the catalog.
+     * @throws SQLException if the export fails.
+     */
+    static List<String> export(DataSource dataSource, String catalog) throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS SCHEMA " + catalog)) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+        return Collections.unmodifiableList(script);
+    }
+
+    /**
+     * Replace the content of a database by an exported catalog.
+     *
+     * @param dataSource The target database.
+     * @param catalog    The imported schema, set as current schema.
+     * @param script     The statements returned by {@link #export(DataSource, String)}.
+     * @throws SQLException if the import fails.
+     */
+    static void restore(DataSource dataSource, String catalog, List<String> script) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+            statement.execute("SET SCHEMA " + catalog);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package fr.irun.testy.jooq;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Measure the maximum heap retained between a start and a stop.
+ * <p>
+ * The heap used after each garbage collection is listened, it only counts the reachable objects. When no collection
+ * occurred, the peak usage of the heap pools is used instead, counting also the garbage.
+ * </p><p>
+ * The heap used at start is measured on the same basis, after a garbage collection requested by {@link #start()}.
+ * Otherwise the garbage present at start would hide the objects retained during the measure. With
+ * {@code -XX:+DisableExplicitGC}, the garbage of the start is counted and the growth is under-estimated.
+ * </p>
+ */
+final class HeapWatermark implements NotificationListener {
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+    private final AtomicLong maxAfterGc = new AtomicLong(-1);
+    private volatile long startUsage;
+
+    void start() {
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        startUsage = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        maxAfterGc.set(-1);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    /**
+     * @return The heap high watermark above the heap used at start, in bytes.
+     */
+    long current() {
+        long watermark = maxAfterGc.get();
+        if (watermark < 0) {
+            watermark = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        }
+        return Math.max(0, watermark - startUsage);
+    }
+
+    void stop() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gc).removeNotificationListener(this);
+                } catch (ListenerNotFoundException ignore) {
+                    // Not registered on this collector
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = info.getGcInfo().getMemoryUsageAfterGc().get(pool.getName());
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        maxAfterGc.accumulateAndGet(used, Math::max);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.irun.testy.jooq;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.resolver.Context;
+import org.flywaydb.core.api.resolver.MigrationResolver;
+import org.flywaydb.core.api.resolver.ResolvedMigration;
+import org.flywaydb.core.internal.info.MigrationInfoImpl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * JVM wide cache of the migrations resolved by Flyway, by location.
+ * <p>
+ * Flyway scans the location, reads and checksums every script each time it is loaded. The migrations resolved by the
+ * first test class are kept and given to the next Flyway instances as a custom resolver. The scripts are also parsed
+ * once, by their first execution.
+ * </p>
+ * <p>
+ * The classpath does not change during the tests, the cached migrations are always current and the validation of
+ * the migrations against the resolved ones is skipped.
+ * </p>
+ */
+final class MigrationCache {
+    private static final ConcurrentMap<Location, CachedResolver> CACHE = new ConcurrentHashMap<>();
+
+    private MigrationCache() {
+    }
+
+    /**
+     * Clean the schema and apply the migrations of the location, resolved once by JVM.
+     *
+     * @param configuration The configuration of Flyway, without resolvers.
+     * @param location      The location of the migrations.
+     */
+    static void cleanAndMigrate(FluentConfiguration configuration, Location location) {
+        CachedResolver resolver = CACHE.computeIfAbsent(location, l -> new CachedResolver(resolve(configuration.load())));
+        Flyway flyway = configuration
+                .skipDefaultResolvers(true)
+                .resolvers(resolver)
+                .validateOnMigrate(false)
+                .load();
+        flyway.clean();
+        resolver.migrate(flyway);
+    }
+
+    static boolean isCached(Location location) {
+        return CACHE.containsKey(location);
+    }
+
+    private static List<ResolvedMigration> resolve(Flyway flyway) {
+        return Arrays.stream(flyway.info().all())
+                .map(info -> ((MigrationInfoImpl) info).getResolvedMigration())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static final class CachedResolver implements MigrationResolver {
+        private final List<ResolvedMigration> migrations;
+        private volatile boolean parsed = false;
+
+        private CachedResolver(List<ResolvedMigration> migrations) {
+            this.migrations = migrations;
+        }
+
+        @Override
+        public Collection<ResolvedMigration> resolveMigrations(Context context) {
+            return migrations;
+        }
+
+        void migrate(Flyway flyway) {
+            if (parsed) {
+                flyway.migrate();
+                return;
+            }
+            // The scripts are parsed by their first execution, which shall not run concurrently
+            synchronized (this) {
+                flyway.migrate();
+                parsed = true;
+            }
+        }
+    }
+}
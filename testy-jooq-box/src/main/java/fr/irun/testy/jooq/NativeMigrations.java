@@ -0,0 +1,272 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.WithFlywaySchemaHistory.FlywayTable;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.MigrationVersion;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStepN;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Apply the versioned SQL migrations of a location with H2 {@code RUNSCRIPT}, without Flyway.
+ * <p>
+ * The scripts named following the Flyway convention {@code V<version>__<description>.sql} are sorted by version
+ * and concatenated once by JVM in a temporary file. Each catalog is then created by a single {@code RUNSCRIPT},
+ * without the per statement parsing, the per migration transactions and the history of Flyway.
+ * </p>
+ */
+final class NativeMigrations {
+    private static final Pattern VERSIONED_SCRIPT = Pattern.compile("V(.+?)__(.+)\\.sql");
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FILESYSTEM_PREFIX = "filesystem:";
+    private static final ConcurrentMap<Location, NativeMigrations> CACHE = new ConcurrentHashMap<>();
+
+    private final List<Script> scripts;
+    private final Path combinedScript;
+
+    private NativeMigrations(List<Script> scripts, Path combinedScript) {
+        this.scripts = scripts;
+        this.combinedScript = combinedScript;
+    }
+
+    /**
+     * Load the migrations of a location, once by JVM.
+     *
+     * @param location The location of the migrations.
+     * @return The ordered migrations.
+     */
+    static NativeMigrations of(Location location) {
+        return CACHE.computeIfAbsent(location, NativeMigrations::load);
+    }
+
+    /**
+     * Recreate the schema and run all the migrations.
+     *
+     * @param dataSource The H2 database.
+     * @param catalog    The schema to recreate.
+     * @throws SQLException if a script fails.
+     */
+    void run(DataSource dataSource, String catalog) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + catalog + " CASCADE");
+            statement.execute("CREATE SCHEMA " + catalog);
+            statement.execute("SET SCHEMA " + catalog);
+            statement.execute("RUNSCRIPT FROM '" + combinedScript.toAbsolutePath() + "' CHARSET 'UTF-8'");
+        }
+    }
+
+    /**
+     * Fill the Flyway history table as if the migrations were applied by Flyway.
+     *
+     * @param dataSource The H2 database.
+     * @param catalog    The schema of the history table.
+     * @param tableName  The name of the history table.
+     */
+    void writeHistory(DataSource dataSource, String catalog, String tableName) {
+        FlywayTable flywayTable = new FlywayTable(tableName, catalog);
+        DSLContext dslContext = DSL.using(dataSource, SQLDialect.H2);
+        dslContext.dropTableIfExists(flywayTable).execute();
+        dslContext.createTable(flywayTable).columns(flywayTable.allFields).execute();
+        if (scripts.isEmpty()) {
+            return;
+        }
+
+        Timestamp installedOn = Timestamp.from(Instant.now());
+        String installedBy = dslContext.select(DSL.currentUser()).fetchOne().value1();
+        InsertValuesStepN<Record> query = dslContext.insertInto(flywayTable).columns(flywayTable.allFields);
+        for (int i = 0; i < scripts.size(); i++) {
+            Script script = scripts.get(i);
+            query.values(Arrays.asList(i + 1,
+                    script.version.getVersion(),
+                    script.description,
+                    MigrationType.SQL.name(),
+                    script.name,
+                    script.checksum,
+                    installedBy,
+                    installedOn,
+                    0,
+                    true));
+        }
+        query.execute();
+    }
+
+    List<String> scriptNames() {
+        return scripts.stream().map(s -> s.name).collect(Collectors.toList());
+    }
+
+    private static NativeMigrations load(Location location) {
+        try {
+            List<Script> scripts = listScripts(location.getDescriptor()).stream()
+                    .sorted(Comparator.comparing(script -> script.version))
+                    .collect(Collectors.toList());
+
+            Path combinedScript = Files.createTempFile("migrations-", ".sql");
+            combinedScript.toFile().deleteOnExit();
+            StringBuilder content = new StringBuilder();
+            for (Script script : scripts) {
+                content.append("-- ").append(script.name).append('\n')
+                        .append(script.content).append("\n;\n");
+            }
+            Files.write(combinedScript, content.toString().getBytes(StandardCharsets.UTF_8));
+
+            return new NativeMigrations(Collections.unmodifiableList(scripts), combinedScript);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read migrations from " + location, e);
+        }
+    }
+
+    private static List<Script> listScripts(String descriptor) throws IOException {
+        List<Script> scripts = new ArrayList<>();
+        if (descriptor.startsWith(FILESYSTEM_PREFIX)) {
+            listDirectory(Paths.get(descriptor.substring(FILESYSTEM_PREFIX.length())), scripts);
+            return scripts;
+        }
+
+        String path = descriptor.startsWith(CLASSPATH_PREFIX) ? descriptor.substring(CLASSPATH_PREFIX.length()) : descriptor;
+        path = path.replace('.', '/').replaceAll("^/+|/+$", "");
+        Enumeration<URL> roots = Thread.currentThread().getContextClassLoader().getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("jar".equals(root.getProtocol())) {
+                listJar(root, path, scripts);
+            } else {
+                try {
+                    listDirectory(Paths.get(root.toURI()), scripts);
+                } catch (URISyntaxException e) {
+                    listDirectory(Paths.get(URLDecoder.decode(root.getPath(), StandardCharsets.UTF_8.name())), scripts);
+                }
+            }
+        }
+        return scripts;
+    }
+
+    private static void listDirectory(Path directory, List<Script> scripts) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Script.parse(file.getFileName().toString(), Files.readAllBytes(file)).ifPresent(scripts::add);
+            }
+        }
+    }
+
+    private static void listJar(URL root, String path, List<Script> scripts) throws IOException {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().startsWith(path + '/')) {
+                    continue;
+                }
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                try (InputStream in = jar.getInputStream(entry)) {
+                    Script.parse(fileName, readAll(in)).ifPresent(scripts::add);
+                }
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A versioned SQL migration.
+     */
+    private static final class Script {
+        final String name;
+        final MigrationVersion version;
+        final String description;
+        final String content;
+        final int checksum;
+
+        private Script(String name, MigrationVersion version, String description, String content) {
+            this.name = name;
+            this.version = version;
+            this.description = description;
+            this.content = content;
+            this.checksum = checksum(content);
+        }
+
+        static Optional<Script> parse(String fileName, byte[] bytes) {
+            Matcher matcher = VERSIONED_SCRIPT.matcher(fileName);
+            if (!matcher.matches()) {
+                return Optional.empty();
+            }
+            String content = new String(bytes, StandardCharsets.UTF_8);
+            if (content.startsWith("\uFEFF")) {
+                content = content.substring(1);
+            }
+            return Optional.of(new Script(fileName,
+                    MigrationVersion.fromVersion(matcher.group(1).replace('_', '.')),
+                    matcher.group(2).replace('_', ' '),
+                    content));
+        }
+
+        /**
+         * Same checksum as Flyway: a CRC32 of the lines, without the line breaks.
+         */
+        private static int checksum(String content) {
+            CRC32 crc32 = new CRC32();
+            try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    crc32.update(line.getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return (int) crc32.getValue();
+        }
+    }
+}
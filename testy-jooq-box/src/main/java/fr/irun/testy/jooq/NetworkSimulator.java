@@ -0,0 +1,175 @@
+package fr.irun.testy.jooq;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wrap the JDBC objects of a {@link DataSource} to add a network delay to each round trip to the database.
+ * <p>
+ * A round trip is an execution of a statement, a batch counting for one, or a transaction command. The rows read
+ * from the result sets are additionally delayed according to the bandwidth, their size being estimated from the
+ * values of all their columns. The delays are only applied while the simulator is active.
+ * </p>
+ */
+final class NetworkSimulator {
+    private static final Set<String> STATEMENT_ROUND_TRIPS = ImmutableSet.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> CONNECTION_ROUND_TRIPS = ImmutableSet.of(
+            "commit", "rollback", "setAutoCommit", "setTransactionIsolation", "setSavepoint", "releaseSavepoint");
+    private static final Set<String> RESULT_SET_FACTORIES = ImmutableSet.of(
+            "executeQuery", "getResultSet", "getGeneratedKeys");
+    private static final int ROW_OVERHEAD_BYTES = 4;
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final long bytesPerSecond;
+    private final AtomicReference<NetworkStats> current = new AtomicReference<>(new NetworkStats());
+    private volatile boolean active = false;
+
+    NetworkSimulator(Duration latency, Duration jitter, long bytesPerSecond) {
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Start simulating the network for a new test.
+     *
+     * @return The statistics recorded from now on.
+     */
+    NetworkStats start() {
+        NetworkStats stats = new NetworkStats();
+        current.set(stats);
+        active = true;
+        return stats;
+    }
+
+    void stop() {
+        active = false;
+    }
+
+    DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return (result instanceof Connection) ? proxy(Connection.class, (Connection) result, this::onConnection) : result;
+        });
+    }
+
+    private Object onConnection(Connection target, Method method, Object[] args) throws Throwable {
+        if (CONNECTION_ROUND_TRIPS.contains(method.getName())) {
+            roundTrip();
+        }
+        Object result = invoke(target, method, args);
+        if (result instanceof CallableStatement) {
+            return proxy(CallableStatement.class, (CallableStatement) result, this::onStatement);
+        } else if (result instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, (PreparedStatement) result, this::onStatement);
+        } else if (result instanceof Statement) {
+            return proxy(Statement.class, (Statement) result, this::onStatement);
+        }
+        return result;
+    }
+
+    private Object onStatement(Statement target, Method method, Object[] args) throws Throwable {
+        if (STATEMENT_ROUND_TRIPS.contains(method.getName())) {
+            roundTrip();
+        }
+        Object result = invoke(target, method, args);
+        if (result instanceof ResultSet && RESULT_SET_FACTORIES.contains(method.getName())) {
+            return proxy(ResultSet.class, (ResultSet) result, this::onResultSet);
+        }
+        return result;
+    }
+
+    private Object onResultSet(ResultSet target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result) && active && bytesPerSecond > 0) {
+            transfer(rowSize(target));
+        }
+        return result;
+    }
+
+    private void roundTrip() {
+        if (!active) {
+            return;
+        }
+        long jitter = (jitterNanos > 0) ? ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1) : 0;
+        long delay = Math.max(0, latencyNanos + jitter);
+        sleep(delay);
+        current.get().recordRoundTrip(delay);
+    }
+
+    private void transfer(long bytes) {
+        long delay = bytes * 1_000_000_000L / bytesPerSecond;
+        sleep(delay);
+        current.get().recordTransfer(bytes, delay);
+    }
+
+    private static long rowSize(ResultSet rs) throws SQLException {
+        long size = ROW_OVERHEAD_BYTES;
+        int columns = rs.getMetaData().getColumnCount();
+        for (int i = 1; i <= columns; i++) {
+            Object value = rs.getObject(i);
+            if (value == null) {
+                size += 1;
+            } else if (value instanceof Number || value instanceof Boolean) {
+                size += 8;
+            } else if (value instanceof byte[]) {
+                size += ((byte[]) value).length;
+            } else {
+                size += value.toString().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return "equals".equals(method.getName()) ? proxy == args[0] : invoke(target, method, args);
+            }
+            return handler.invoke(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(NetworkSimulator.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object invoke(T target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,88 @@
+package fr.irun.testy.jooq;
+
+import java.time.Duration;
+
+/**
+ * Network activity simulated by {@link WithNetworkLatency} for the current test.
+ * <p>
+ * This object can be injected as parameter of test methods:
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_load_jedis_in_few_round_trips(NetworkStats network) {
+ *         tested.findAllWithMasters().blockLast();
+ *
+ *         network.assertMaxRoundTrips(2);
+ *     }
+ * </code></pre>
+ */
+public final class NetworkStats {
+    private long roundTrips;
+    private long bytesTransferred;
+    private long simulatedNanos;
+
+    NetworkStats() {
+    }
+
+    synchronized void recordRoundTrip(long nanos) {
+        roundTrips++;
+        simulatedNanos += nanos;
+    }
+
+    synchronized void recordTransfer(long bytes, long nanos) {
+        bytesTransferred += bytes;
+        simulatedNanos += nanos;
+    }
+
+    /**
+     * @return The count of round trips to the database during the test.
+     */
+    public synchronized long roundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * @return The estimated count of bytes read from the result sets during the test.
+     */
+    public synchronized long bytesTransferred() {
+        return bytesTransferred;
+    }
+
+    /**
+     * @return The cumulated network time added to the statements of the test.
+     */
+    public synchronized Duration simulatedTime() {
+        return Duration.ofNanos(simulatedNanos);
+    }
+
+    /**
+     * Check that no more than {@code max} round trips to the database were done during the test.
+     *
+     * @param max The maximum count of round trips.
+     * @throws AssertionError if more round trips were done.
+     */
+    public synchronized void assertMaxRoundTrips(long max) {
+        if (roundTrips > max) {
+            throw new AssertionError(String.format("Expected at most %d round trips but %d were done (%d ms of network)",
+                    max, roundTrips, simulatedTime().toMillis()));
+        }
+    }
+
+    /**
+     * Check that the network time added to the test does not exceed {@code max}.
+     *
+     * @param max The maximum network time.
+     * @throws AssertionError if more network time was simulated.
+     */
+    public synchronized void assertMaxSimulatedTime(Duration max) {
+        if (simulatedNanos > max.toNanos()) {
+            throw new AssertionError(String.format("Expected at most %d ms of network but %d ms were simulated for %d round trips",
+                    max.toMillis(), simulatedTime().toMillis(), roundTrips));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d round trips, %d bytes, %d ms", roundTrips, bytesTransferred, simulatedTime().toMillis());
+    }
+}
@@ -0,0 +1,110 @@
+package fr.irun.testy.jooq;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Access paths chosen by H2 for a SELECT, parsed from the output of {@code EXPLAIN ANALYZE}.
+ * <p>
+ * For each table read by the query, H2 writes a comment with the index used, or {@code tableScan} when the
+ * whole table was read, followed by the count of rows scanned:
+ * </p>
+ * <pre>
+ * FROM "dummy"."JEDI"
+ *     /* dummy.IDX_LAST_NAME: LAST_NAME = 'Kenobi' *&#47;
+ *     /* scanCount: 2 *&#47;
+ * </pre>
+ * <p>
+ * The accesses are keyed by table and alias, as {@code dummy.JEDI "J"}, so each side of a self-join is kept. A table
+ * read many times under the same alias, as in the branches of a {@code UNION}, is numbered from the second read:
+ * {@code dummy.JEDI#2}.
+ * </p>
+ */
+final class QueryPlan {
+    static final String TABLE_SCAN = "tableScan";
+
+    private static final Pattern TABLE_ACCESS = Pattern.compile(
+            "(?:FROM|JOIN)\\s+\"([^\"]+)\"\\.\"([^\"]+)\"(?:\\s+(\"[^\"]+\"))?\\s*/\\*\\s*(.*?)\\s*\\*/", Pattern.DOTALL);
+    private static final Pattern SCAN_COUNT = Pattern.compile("/\\*\\s*scanCount:\\s*(\\d+)\\s*\\*/");
+
+    final String sql;
+    final ImmutableSortedMap<String, String> accesses;
+    final ImmutableSortedMap<String, Long> scanCounts;
+
+    QueryPlan(String sql, Map<String, String> accesses, Map<String, Long> scanCounts) {
+        this.sql = sql;
+        this.accesses = ImmutableSortedMap.copyOf(accesses);
+        this.scanCounts = ImmutableSortedMap.copyOf(scanCounts);
+    }
+
+    /**
+     * Parse the output of {@code EXPLAIN ANALYZE}.
+     *
+     * @param sql     The explained SQL, with bind placeholders.
+     * @param explain The plan returned by H2.
+     * @return The access paths of the query.
+     */
+    static QueryPlan parse(String sql, String explain) {
+        SortedMap<String, String> accesses = new TreeMap<>();
+        SortedMap<String, Long> scanCounts = new TreeMap<>();
+        Matcher access = TABLE_ACCESS.matcher(explain);
+        while (access.find()) {
+            String alias = access.group(1) + '.' + access.group(2)
+                    + ((access.group(3) != null) ? ' ' + access.group(3) : "");
+            String table = alias;
+            for (int occurrence = 2; accesses.containsKey(table); occurrence++) {
+                table = alias + '#' + occurrence;
+            }
+            String comment = access.group(4);
+            String path = comment.endsWith('.' + TABLE_SCAN)
+                    ? TABLE_SCAN
+                    : comment.split("[:\\s]", 2)[0];
+            accesses.put(table, path.substring(path.lastIndexOf('.') + 1));
+
+            Matcher scanCount = SCAN_COUNT.matcher(explain);
+            if (scanCount.find(access.end())) {
+                scanCounts.put(table, Long.parseLong(scanCount.group(1)));
+            }
+        }
+        return new QueryPlan(sql, accesses, scanCounts);
+    }
+
+    /**
+     * List the tables fully scanned with more than {@code threshold} rows.
+     *
+     * @param threshold The count of scanned rows above which a table scan is reported.
+     * @return The count of scanned rows by table.
+     */
+    Map<String, Long> fullScansAbove(long threshold) {
+        return accesses.entrySet().stream()
+                .filter(e -> TABLE_SCAN.equals(e.getValue()))
+                .filter(e -> scanCounts.getOrDefault(e.getKey(), 0L) > threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> scanCounts.get(e.getKey())));
+    }
+
+    /**
+     * @return The access paths as a single line, as stored in the baseline: {@code TABLE=access,TABLE "A"=access}.
+     */
+    String summary() {
+        return accesses.entrySet().stream()
+                .map(e -> e.getKey() + '=' + e.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    static SortedMap<String, String> parseSummary(String summary) {
+        SortedMap<String, String> accesses = new TreeMap<>();
+        for (String access : summary.split(",")) {
+            int idx = access.indexOf('=');
+            if (idx > 0) {
+                accesses.put(access.substring(0, idx), access.substring(idx + 1));
+            }
+        }
+        return accesses;
+    }
+}
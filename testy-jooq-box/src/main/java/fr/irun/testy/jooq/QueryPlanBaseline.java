@@ -0,0 +1,102 @@
+package fr.irun.testy.jooq;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * File storing the access paths of the queries executed by the tests, used to detect plan regressions.
+ * <p>
+ * Each line holds the access paths of a query followed by a tabulation and the SQL of the query. The lines are
+ * sorted by SQL to keep the file readable in a diff.
+ * </p>
+ */
+final class QueryPlanBaseline {
+    private static final Object LOCK = new Object();
+
+    private final Path file;
+
+    QueryPlanBaseline(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Compare the plans with the baseline and record the plans of the new queries.
+     * <p>
+     * A regression is a table read through an index in the baseline and now fully scanned. The regressed plans are
+     * not written into the baseline, so the build keeps failing until the regression is fixed or the baseline line
+     * removed.
+     * </p>
+     *
+     * @param plans The plans captured by a test class.
+     * @return The description of the regressions, empty if none.
+     */
+    List<String> check(Collection<QueryPlan> plans) {
+        synchronized (LOCK) {
+            SortedMap<String, String> baseline = read();
+            List<String> regressions = new ArrayList<>();
+            for (QueryPlan plan : plans) {
+                String expected = baseline.get(plan.sql);
+                if (expected == null) {
+                    baseline.put(plan.sql, plan.summary());
+                    continue;
+                }
+
+                boolean regressed = false;
+                for (Map.Entry<String, String> access : QueryPlan.parseSummary(expected).entrySet()) {
+                    String actual = plan.accesses.get(access.getKey());
+                    if (QueryPlan.TABLE_SCAN.equals(actual) && !QueryPlan.TABLE_SCAN.equals(access.getValue())) {
+                        regressions.add(String.format("%s: %s replaced by %s in%n  %s",
+                                access.getKey(), access.getValue(), actual, plan.sql));
+                        regressed = true;
+                    }
+                }
+                if (!regressed) {
+                    baseline.put(plan.sql, plan.summary());
+                }
+            }
+            write(baseline);
+            return regressions;
+        }
+    }
+
+    private SortedMap<String, String> read() {
+        SortedMap<String, String> baseline = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return baseline;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int idx = line.indexOf('\t');
+                if (!line.startsWith("#") && idx > 0) {
+                    baseline.put(line.substring(idx + 1), line.substring(0, idx));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read query plans baseline " + file, e);
+        }
+        return baseline;
+    }
+
+    private void write(SortedMap<String, String> baseline) {
+        List<String> lines = new ArrayList<>(baseline.size() + 1);
+        lines.add("# Access paths of the queries executed by the tests, used to detect plan regressions");
+        baseline.forEach((sql, summary) -> lines.add(summary + '\t' + sql));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write query plans baseline " + file, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package fr.irun.testy.jooq;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteType;
+import org.jooq.Query;
+import org.jooq.impl.DefaultExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * jOOQ listener collecting the distinct SELECT executed by the tests, in order to explain them with H2.
+ * <p>
+ * The queries are only collected during the execution. They are explained after the test, on a dedicated
+ * connection, to avoid interfering with the statements of the test.
+ * </p>
+ */
+final class QueryPlanListener extends DefaultExecuteListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryPlanListener.class);
+
+    private final transient Map<String, String> pending = new ConcurrentHashMap<>();
+    private final transient Map<String, QueryPlan> plans = new ConcurrentHashMap<>();
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        Query query = ctx.query();
+        if (ctx.type() != ExecuteType.READ || query == null || ctx.sql() == null) {
+            return;
+        }
+
+        String sql = normalize(ctx.sql());
+        if (!plans.containsKey(sql) && !pending.containsKey(sql)) {
+            String inlined = ctx.dsl().renderInlined(query);
+            String verb = inlined.trim().toUpperCase(Locale.ROOT);
+            if (verb.startsWith("SELECT") || verb.startsWith("WITH")) {
+                pending.put(sql, inlined);
+            }
+        }
+    }
+
+    /**
+     * Explain the queries collected since the last call.
+     *
+     * @param dataSource The DataSource on which the queries were executed.
+     * @return The plans of the newly collected queries.
+     */
+    List<QueryPlan> explainPending(DataSource dataSource) {
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<QueryPlan> explained = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            for (String sql : new ArrayList<>(pending.keySet())) {
+                String inlined = pending.remove(sql);
+                try (ResultSet rs = statement.executeQuery("EXPLAIN ANALYZE " + inlined)) {
+                    if (rs.next()) {
+                        QueryPlan plan = QueryPlan.parse(sql, rs.getString(1));
+                        plans.put(sql, plan);
+                        explained.add(plan);
+                    }
+                } catch (SQLException e) {
+                    LOGGER.warn("Unable to explain query {}: {}", inlined, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to explain queries: {}", e.getMessage());
+        }
+        return explained;
+    }
+
+    /**
+     * @return All the plans explained for the test class.
+     */
+    Collection<QueryPlan> plans() {
+        return Collections.unmodifiableCollection(plans.values());
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,261 @@
+package fr.irun.testy.jooq;
+
+import com.google.common.collect.ImmutableMap;
+import org.jooq.ExecuteType;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * SQL statistics recorded by {@link WithDslContext} for the current test.
+ * <p>
+ * Enabled with {@link WithDslContext.WithDslContextBuilder#recordQueryStats(boolean)}, this object can be injected as
+ * parameter of test methods:
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_load_jedis_without_n_plus_one(QueryStats stats) {
+ *         tested.findAllWithMasters().blockLast();
+ *
+ *         stats.assertMaxStatements(2);
+ *         stats.assertNoNPlusOne();
+ *     }
+ * </code></pre>
+ * <p>
+ * Two statements are considered identical when their rendered SQL is the same. An identical statement executed with
+ * many different bind values is the signature of a N+1 query pattern, or of inserts which are not batched.
+ * </p><p>
+ * The bind values are counted by hash, up to {@link #MAX_DISTINCT_BIND_VALUES} by statement, so a looping test does
+ * not retain its bind values. The batches are counted as statements, but their bind values are not tracked.
+ * </p>
+ */
+public final class QueryStats {
+    /**
+     * Minimum count of executions with distinct bind values from which a statement is reported as repeated.
+     */
+    public static final int DEFAULT_REPEAT_THRESHOLD = 3;
+
+    /**
+     * Maximum count of distinct bind values tracked by statement, the count of distinct bind values saturates above.
+     */
+    public static final int MAX_DISTINCT_BIND_VALUES = 1024;
+
+    private final Map<ExecuteType, Integer> statementsByType = new EnumMap<>(ExecuteType.class);
+    private final Map<String, StatementStats> statements = new LinkedHashMap<>();
+
+    private long renderNanos;
+    private long bindNanos;
+    private long executeNanos;
+    private long fetchNanos;
+    private long rowsFetched;
+
+    QueryStats() {
+    }
+
+    synchronized void clear() {
+        statementsByType.clear();
+        statements.clear();
+        renderNanos = 0;
+        bindNanos = 0;
+        executeNanos = 0;
+        fetchNanos = 0;
+        rowsFetched = 0;
+    }
+
+    /**
+     * @param bindValues The bind values of the statement, {@code null} for a batch.
+     */
+    synchronized void recordExecution(ExecuteType type, String sql, boolean isInsert,
+                                      @Nullable List<Object> bindValues) {
+        statementsByType.merge(type, 1, Integer::sum);
+        StatementStats statement = statements.computeIfAbsent(sql, s -> new StatementStats(type, isInsert));
+        if (bindValues != null && statement.bindValueHashes.size() < MAX_DISTINCT_BIND_VALUES) {
+            statement.bindValueHashes.add(bindValues.hashCode());
+        }
+    }
+
+    synchronized void recordRender(long nanos) {
+        renderNanos += nanos;
+    }
+
+    synchronized void recordBind(long nanos) {
+        bindNanos += nanos;
+    }
+
+    synchronized void recordExecute(long nanos) {
+        executeNanos += nanos;
+    }
+
+    synchronized void recordFetch(long nanos) {
+        fetchNanos += nanos;
+    }
+
+    synchronized void recordRow() {
+        rowsFetched++;
+    }
+
+    /**
+     * @return The count of statements executed during the test.
+     */
+    public synchronized int statementCount() {
+        return statementsByType.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * @param type The type of statements to count.
+     * @return The count of statements of the given type executed during the test.
+     */
+    public synchronized int statementCount(ExecuteType type) {
+        return statementsByType.getOrDefault(type, 0);
+    }
+
+    /**
+     * @return The cumulated time spent by jOOQ to render the SQL.
+     */
+    public synchronized Duration renderTime() {
+        return Duration.ofNanos(renderNanos);
+    }
+
+    /**
+     * @return The cumulated time spent to bind the values to the statements.
+     */
+    public synchronized Duration bindTime() {
+        return Duration.ofNanos(bindNanos);
+    }
+
+    /**
+     * @return The cumulated time spent by the database to execute the statements.
+     */
+    public synchronized Duration executeTime() {
+        return Duration.ofNanos(executeNanos);
+    }
+
+    /**
+     * @return The cumulated time spent to fetch the results.
+     */
+    public synchronized Duration fetchTime() {
+        return Duration.ofNanos(fetchNanos);
+    }
+
+    /**
+     * @return The count of rows fetched during the test.
+     */
+    public synchronized long rowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * List the statements executed many times with different bind values.
+     *
+     * @param threshold The minimum count of distinct bind values for a statement to be listed.
+     * @return The count of distinct bind values, by SQL statement.
+     */
+    public synchronized Map<String, Integer> repeatedStatements(int threshold) {
+        return statements.entrySet().stream()
+                .filter(e -> e.getValue().distinctBindValues() >= threshold)
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> e.getValue().distinctBindValues()));
+    }
+
+    /**
+     * Check that no more than {@code max} statements were executed during the test.
+     *
+     * @param max The maximum count of statements.
+     * @throws AssertionError if more statements were executed.
+     */
+    public synchronized void assertMaxStatements(int max) {
+        int count = statementCount();
+        if (count > max) {
+            throw new AssertionError(String.format("Expected at most %d statements but %d were executed:%n%s",
+                    max, count, describe(statements.keySet())));
+        }
+    }
+
+    /**
+     * Check that no SELECT was executed {@link #DEFAULT_REPEAT_THRESHOLD} times or more with different bind values.
+     *
+     * @throws AssertionError if a N+1 query pattern was detected.
+     */
+    public void assertNoNPlusOne() {
+        assertNoNPlusOne(DEFAULT_REPEAT_THRESHOLD);
+    }
+
+    /**
+     * Check that no SELECT was executed {@code threshold} times or more with different bind values.
+     *
+     * @param threshold The minimum count of distinct bind values considered as a N+1 pattern.
+     * @throws AssertionError if a N+1 query pattern was detected.
+     */
+    public synchronized void assertNoNPlusOne(int threshold) {
+        assertNotRepeated(threshold, s -> s.type == ExecuteType.READ, "N+1 query pattern detected");
+    }
+
+    /**
+     * Check that no INSERT was executed {@link #DEFAULT_REPEAT_THRESHOLD} times or more outside of a batch.
+     *
+     * @throws AssertionError if unbatched inserts were detected.
+     */
+    public void assertNoUnbatchedInserts() {
+        assertNoUnbatchedInserts(DEFAULT_REPEAT_THRESHOLD);
+    }
+
+    /**
+     * Check that no INSERT was executed {@code threshold} times or more outside of a batch.
+     *
+     * @param threshold The minimum count of distinct bind values considered as unbatched inserts.
+     * @throws AssertionError if unbatched inserts were detected.
+     */
+    public synchronized void assertNoUnbatchedInserts(int threshold) {
+        assertNotRepeated(threshold, s -> s.isInsert && s.type != ExecuteType.BATCH, "Unbatched inserts detected");
+    }
+
+    private void assertNotRepeated(int threshold, Predicate<StatementStats> filter, String message) {
+        Map<String, Integer> repeated = statements.entrySet().stream()
+                .filter(e -> filter.test(e.getValue()))
+                .filter(e -> e.getValue().distinctBindValues() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().distinctBindValues(),
+                        (a, b) -> a, LinkedHashMap::new));
+        if (!repeated.isEmpty()) {
+            throw new AssertionError(message + ":" + System.lineSeparator() + repeated.entrySet().stream()
+                    .map(e -> "  " + e.getValue() + " x " + e.getKey())
+                    .collect(Collectors.joining(System.lineSeparator())));
+        }
+    }
+
+    private static String describe(Set<String> sqls) {
+        return sqls.stream().map(s -> "  " + s).collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryStats{statements=" + statementCount()
+                + ", rowsFetched=" + rowsFetched
+                + ", render=" + renderTime()
+                + ", bind=" + bindTime()
+                + ", execute=" + executeTime()
+                + ", fetch=" + fetchTime()
+                + '}';
+    }
+
+    private static final class StatementStats {
+        private final ExecuteType type;
+        private final boolean isInsert;
+        private final Set<Integer> bindValueHashes = new HashSet<>();
+
+        private StatementStats(ExecuteType type, boolean isInsert) {
+            this.type = type;
+            this.isInsert = isInsert;
+        }
+
+        private int distinctBindValues() {
+            return bindValueHashes.size();
+        }
+    }
+}
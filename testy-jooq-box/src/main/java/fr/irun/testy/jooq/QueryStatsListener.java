@@ -0,0 +1,91 @@
+package fr.irun.testy.jooq;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteType;
+import org.jooq.Insert;
+import org.jooq.Query;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * jOOQ listener feeding the {@link QueryStats} of the running test.
+ */
+final class QueryStatsListener extends DefaultExecuteListener {
+    private static final String D_RENDER_START = QueryStatsListener.class.getName() + ".render";
+    private static final String D_BIND_START = QueryStatsListener.class.getName() + ".bind";
+    private static final String D_EXECUTE_START = QueryStatsListener.class.getName() + ".execute";
+    private static final String D_FETCH_START = QueryStatsListener.class.getName() + ".fetch";
+
+    private final transient AtomicReference<QueryStats> current = new AtomicReference<>(new QueryStats());
+
+    /**
+     * Start recording statistics for a new test.
+     *
+     * @return The statistics recorded from now on.
+     */
+    QueryStats reset() {
+        QueryStats stats = new QueryStats();
+        current.set(stats);
+        return stats;
+    }
+
+    @Override
+    public void renderStart(ExecuteContext ctx) {
+        ctx.data(D_RENDER_START, System.nanoTime());
+    }
+
+    @Override
+    public void renderEnd(ExecuteContext ctx) {
+        current.get().recordRender(elapsed(ctx, D_RENDER_START));
+    }
+
+    @Override
+    public void bindStart(ExecuteContext ctx) {
+        ctx.data(D_BIND_START, System.nanoTime());
+    }
+
+    @Override
+    public void bindEnd(ExecuteContext ctx) {
+        current.get().recordBind(elapsed(ctx, D_BIND_START));
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(D_EXECUTE_START, System.nanoTime());
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        QueryStats stats = current.get();
+        stats.recordExecute(elapsed(ctx, D_EXECUTE_START));
+
+        Query query = ctx.query();
+        String sql = (ctx.sql() != null) ? ctx.sql() : String.join(";", ctx.batchSQL());
+        List<Object> bindValues = (ctx.type() == ExecuteType.BATCH) ? null
+                : (query != null) ? query.getBindValues() : Collections.emptyList();
+        stats.recordExecution(ctx.type(), sql, query instanceof Insert, bindValues);
+    }
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        ctx.data(D_FETCH_START, System.nanoTime());
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        current.get().recordRow();
+    }
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        current.get().recordFetch(elapsed(ctx, D_FETCH_START));
+    }
+
+    private static long elapsed(ExecuteContext ctx, String key) {
+        Object start = ctx.data(key);
+        return (start instanceof Long) ? System.nanoTime() - (Long) start : 0L;
+    }
+}
@@ -0,0 +1,106 @@
+package fr.irun.testy.jooq;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Select;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Execute the queries built with jOOQ on an R2DBC {@link ConnectionFactory}.
+ * <p>
+ * The queries are built and rendered by a {@link DSLContext} without connection, then executed through R2DBC on a
+ * new connection closed at the end of the execution. The rows are read on demand, so the backpressure of the
+ * subscriber is propagated to the database driver.
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_stream_jedis(ReactiveDslContext reactive) {
+ *         List&lt;String&gt; actual = reactive.fetch(reactive.dsl().selectFrom(JEDI))
+ *                 .map(r -&gt; r.get(JEDI.LAST_NAME))
+ *                 .collectList().block();
+ *     }
+ * </code></pre>
+ */
+public final class ReactiveDslContext {
+    private final DSLContext dsl;
+    private final ConnectionFactory connectionFactory;
+
+    ReactiveDslContext(DSLContext dsl, ConnectionFactory connectionFactory) {
+        this.dsl = dsl;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @return The DSLContext building the queries. It has no connection and cannot execute them.
+     */
+    public DSLContext dsl() {
+        return dsl;
+    }
+
+    /**
+     * @return The R2DBC connection factory of the catalog.
+     */
+    public ConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * Execute a SELECT.
+     *
+     * @param query The query to execute.
+     * @return The records, read from the database on demand.
+     */
+    public Flux<Record> fetch(Select<?> query) {
+        Field<?>[] fields = query.getSelect().toArray(new Field<?>[0]);
+        return Flux.usingWhen(connectionFactory.create(),
+                conn -> Flux.from(statement(conn, query).execute())
+                        .concatMap(result -> result.map((row, metadata) -> {
+                            Object[] values = new Object[fields.length];
+                            for (int i = 0; i < values.length; i++) {
+                                values[i] = row.get(i);
+                            }
+                            Record record = dsl.newRecord(fields);
+                            record.fromArray(values);
+                            record.changed(false);
+                            return record;
+                        })),
+                Connection::close);
+    }
+
+    /**
+     * Execute a query updating rows.
+     *
+     * @param query The query to execute.
+     * @return The count of updated rows.
+     */
+    public Mono<Integer> execute(Query query) {
+        return Flux.usingWhen(connectionFactory.create(),
+                conn -> Flux.from(statement(conn, query).execute())
+                        .concatMap(result -> Flux.from(result.getRowsUpdated())),
+                Connection::close)
+                .reduce(0, Integer::sum);
+    }
+
+    private Statement statement(Connection conn, Query query) {
+        Statement statement = conn.createStatement(dsl.render(query));
+        List<Object> bindValues = query.getBindValues();
+        for (int i = 0; i < bindValues.size(); i++) {
+            Object value = bindValues.get(i);
+            if (value == null) {
+                // The type of the NULL is ignored by H2, converting it to the type of the column
+                statement.bindNull(i, String.class);
+            } else {
+                statement.bind(i, value);
+            }
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,91 @@
+package fr.irun.testy.jooq;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * DataSource delegating to the active one of two identical databases.
+ * <p>
+ * While the tests use the active database, the standby one can be prepared in background. The connections are
+ * opened on the database active at the time of the call, a swap does not affect the connections already opened.
+ * </p>
+ */
+final class SwitchableDataSource implements DataSource {
+    private final AtomicReference<DataSource> active;
+    private final AtomicReference<DataSource> standby;
+
+    SwitchableDataSource(DataSource active, DataSource standby) {
+        this.active = new AtomicReference<>(active);
+        this.standby = new AtomicReference<>(standby);
+    }
+
+    DataSource active() {
+        return active.get();
+    }
+
+    DataSource standby() {
+        return standby.get();
+    }
+
+    /**
+     * Make the standby database active. Not thread safe, the swaps are expected to happen between the tests.
+     */
+    void swap() {
+        standby.set(active.getAndSet(standby.get()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return active().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return active().getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return active().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || active().isWrapperFor(iface);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return active().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        active().setLogWriter(out);
+        standby().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        active().setLoginTimeout(seconds);
+        standby().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return active().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return active().getParentLogger();
+    }
+}
@@ -1,15 +1,19 @@
 package fr.irun.testy.jooq;
 
+import fr.irun.testy.jooq.model.MigrationMode;
 import lombok.AllArgsConstructor;
 import org.flywaydb.core.Flyway;
 import org.flywaydb.core.api.Location;
 import org.flywaydb.core.api.configuration.ClassicConfiguration;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -47,6 +51,8 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
     private final DatasourceExtension wDatasource;
     @Nullable
     private final Location location;
+    private final boolean withMigrationsCache;
+    private final MigrationMode migrationMode;
 
     @Override
     public void beforeAll(ExtensionContext context) {
@@ -56,16 +62,40 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
 
         Location migrationsLocation = Optional.ofNullable(location)
                 .orElseGet(() -> new Location("classpath:db/migration/" + catalog));
-        Flyway flyway = Flyway.configure()
+        if (migrationMode == MigrationMode.FLYWAY) {
+            migrateWithFlyway(dataSource, catalog, migrationsLocation);
+        } else {
+            runNativeScripts(dataSource, catalog, migrationsLocation);
+        }
+
+        getStore(context).put(P_LOADED + catalog, true);
+    }
+
+    private void migrateWithFlyway(DataSource dataSource, String catalog, Location migrationsLocation) {
+        FluentConfiguration configuration = Flyway.configure()
                 .dataSource(dataSource)
                 .schemas(catalog)
                 .placeholderReplacement(false)
-                .locations(migrationsLocation)
-                .load();
-        flyway.clean();
-        flyway.migrate();
+                .locations(migrationsLocation);
+        if (withMigrationsCache) {
+            MigrationCache.cleanAndMigrate(configuration, migrationsLocation);
+        } else {
+            Flyway flyway = configuration.load();
+            flyway.clean();
+            flyway.migrate();
+        }
+    }
 
-        getStore(context).put(P_LOADED + catalog, true);
+    private void runNativeScripts(DataSource dataSource, String catalog, Location migrationsLocation) {
+        NativeMigrations migrations = NativeMigrations.of(migrationsLocation);
+        try {
+            migrations.run(dataSource, catalog);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to run the migrations of " + migrationsLocation, e);
+        }
+        if (migrationMode == MigrationMode.RUNSCRIPT_WITH_HISTORY) {
+            migrations.writeHistory(dataSource, catalog, WithFlywaySchemaHistory.DEFAULT_TABLE_NAME);
+        }
     }
 
     @Override
@@ -84,6 +114,18 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
         return Objects.requireNonNull(wDatasource.getCatalog(context), "Catalog not found in context Store !");
     }
 
+    /**
+     * Group several {@link WithDatabaseLoaded} to run their migrations concurrently. Each one shall depend on a
+     * different {@link DatasourceExtension}.
+     *
+     * @param loaders The extensions to run together.
+     * @return The extension replacing the grouped ones in the chain.
+     * @see WithDatabaseLoadedGroup
+     */
+    public static WithDatabaseLoadedGroup concurrently(WithDatabaseLoaded... loaders) {
+        return new WithDatabaseLoadedGroup(Arrays.asList(loaders));
+    }
+
     public static WithDatabaseLoadedBuilder builder() {
         return new WithDatabaseLoadedBuilder();
     }
@@ -94,6 +136,8 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
     public static class WithDatabaseLoadedBuilder {
         private DatasourceExtension wDatasource;
         private Location location = null;
+        private boolean withMigrationsCache = false;
+        private MigrationMode migrationMode = MigrationMode.FLYWAY;
 
         /**
          * <p>Allow to link the {@link DatasourceExtension} with the {@link WithDatabaseLoaded}. The Flyway migrations
@@ -139,6 +183,34 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
             return this;
         }
 
+        /**
+         * <p>Resolve the migrations of the location once for the JVM and reuse them for the next test classes. The
+         * scripts are read, checksummed and parsed only once.</p>
+         *
+         * <p>The SQL callbacks of Flyway are not supported with the cache.</p>
+         *
+         * @param withMigrationsCache {@code true} to cache the resolved migrations.
+         * @return The current builder
+         */
+        public WithDatabaseLoadedBuilder cacheMigrations(boolean withMigrationsCache) {
+            this.withMigrationsCache = withMigrationsCache;
+            return this;
+        }
+
+        /**
+         * <p>Set how the migrations are applied. By default, {@link MigrationMode#FLYWAY}.</p>
+         *
+         * <p>For catalogs with many small forward-only SQL scripts, {@link MigrationMode#RUNSCRIPT} runs all the
+         * scripts at once with H2, bypassing Flyway.</p>
+         *
+         * @param migrationMode The way to apply the migrations.
+         * @return The current builder
+         */
+        public WithDatabaseLoadedBuilder setMigrationMode(MigrationMode migrationMode) {
+            this.migrationMode = migrationMode;
+            return this;
+        }
+
         /**
          * Build the {@link WithDatabaseLoaded} extension
          *
@@ -146,7 +218,7 @@ public final class WithDatabaseLoaded implements BeforeAllCallback, BeforeEachCa
          */
         public WithDatabaseLoaded build() {
             Objects.requireNonNull(wDatasource, "A DataSource extension was mandatory !");
-            return new WithDatabaseLoaded(wDatasource, location);
+            return new WithDatabaseLoaded(wDatasource, location, withMigrationsCache, Objects.requireNonNull(migrationMode));
         }
     }
 }
@@ -0,0 +1,77 @@
+package fr.irun.testy.jooq;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Run the migrations of several {@link WithDatabaseLoaded} concurrently, each one on its own database.
+ * <p>
+ * Created with {@link WithDatabaseLoaded#concurrently(WithDatabaseLoaded...)}, the group takes the place of the
+ * {@link WithDatabaseLoaded} in the chain, after all their {@link DatasourceExtension}:
+ * </p>
+ * <pre><code>
+ * {@literal @}RegisterExtension
+ * static final ChainedExtension chain = ChainedExtension
+ *         .outer(wLegacyDataSource)
+ *         .append(wNoraDataSource)
+ *         .append(WithDatabaseLoaded.concurrently(wLegacyDatabase, wNoraDatabase))
+ *         .append(wLegacyDslContext)
+ *         .append(wNoraDslContext)
+ *         .register();
+ * </code></pre>
+ * <p>
+ * All the migrations are run to the end, even if one of them fails. The failures are then reported together.
+ * </p>
+ */
+public final class WithDatabaseLoadedGroup implements BeforeAllCallback, BeforeEachCallback {
+    private final ImmutableList<WithDatabaseLoaded> members;
+
+    WithDatabaseLoadedGroup(List<WithDatabaseLoaded> members) {
+        this.members = ImmutableList.copyOf(members);
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, members.size()));
+        try {
+            List<CompletableFuture<Void>> migrations = members.stream()
+                    .map(member -> CompletableFuture.runAsync(() -> member.beforeAll(context), executor))
+                    .collect(Collectors.toList());
+
+            List<Throwable> failures = new ArrayList<>();
+            for (CompletableFuture<Void> migration : migrations) {
+                try {
+                    migration.join();
+                } catch (CompletionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+
+            if (!failures.isEmpty()) {
+                IllegalStateException error = new IllegalStateException(
+                        failures.size() + " of " + members.size() + " database migrations failed");
+                failures.forEach(error::addSuppressed);
+                throw error;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        for (WithDatabaseLoaded member : members) {
+            member.beforeEach(context);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package fr.irun.testy.jooq;
 
+import org.jooq.Configuration;
 import org.jooq.DSLContext;
+import org.jooq.ExecuteListenerProvider;
 import org.jooq.SQLDialect;
 import org.jooq.conf.RenderNameCase;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.junit.jupiter.api.extension.ExtensionContext.Store;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolver;
 
+import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 
 /**
@@ -33,18 +47,68 @@ import java.util.Objects;
  * <p>
  * The default value for {@link SQLDialect} is {@link SQLDialect#H2}
  * </p>
+ * <p>
+ * When {@link WithDslContextBuilder#recordQueryStats(boolean)} is enabled, the statements executed by each test are
+ * recorded in a {@link QueryStats} which can be injected as parameter. The statements executed by the
+ * {@code BeforeEach} callbacks and methods, as the sample data loading, are not counted.
+ * </p>
+ * <p>
+ * When {@link WithDslContextBuilder#captureQueryPlans(boolean)} is enabled, each distinct SELECT executed by a test
+ * is explained with H2 {@code EXPLAIN ANALYZE} after the test. The test fails if a table with more rows than
+ * {@link WithDslContextBuilder#setFullScanThreshold(long)} is fully scanned. If a baseline file is set with
+ * {@link WithDslContextBuilder#setQueryPlanBaseline(Path)}, the plans are stored in it after all the tests and the
+ * test class fails when an index access of the baseline became a table scan.
+ * </p>
+ * <p>
+ * When {@link WithDslContextBuilder#probeFetches(boolean)} is enabled, the rows fetched by each test are recorded in a
+ * {@link FetchStats} which can be injected as parameter, to check that the large results are streamed.
+ * </p>
+ * <p>
+ * When {@link WithDslContextBuilder#recordWorkload(Path)} is set, the statements executed by the tests are written
+ * with their bind values in a file by test class and catalog, {@code <test class>-<catalog>.workload.gz}. The file
+ * can be replayed later by {@link WorkloadReplay} to benchmark the database with the query mix of the tests.
+ * </p>
  */
-public final class WithDslContext implements BeforeAllCallback, ParameterResolver {
+public final class WithDslContext implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+
+    /**
+     * Default count of scanned rows above which a full table scan fails the test.
+     */
+    public static final long DEFAULT_FULL_SCAN_THRESHOLD = 1_000;
 
     private static final String P_DSL_CONTEXT = "dslContext";
     private static final String P_DSL_DIALECT = "dslDialect";
+    private static final String P_QUERY_STATS_LISTENER = "queryStatsListener";
+    private static final String P_QUERY_STATS = "queryStats";
+    private static final String P_QUERY_PLAN_LISTENER = "queryPlanListener";
+    private static final String P_FETCH_PROBE_LISTENER = "fetchProbeListener";
+    private static final String P_FETCH_STATS = "fetchStats";
+    private static final String P_WORKLOAD_FILE = "workloadFile";
+    private static final String P_WORKLOAD_RECORDER = "workloadRecorder";
 
     private final DatasourceExtension wDs;
     private final SQLDialect dialect;
+    private final boolean withQueryStats;
+    private final boolean withQueryPlans;
+    private final boolean withFetchProbe;
+    private final long fullScanThreshold;
+    @Nullable
+    private final Path queryPlanBaseline;
+    @Nullable
+    private final Path workloadDirectory;
 
-    private WithDslContext(DatasourceExtension wDs, SQLDialect dialect) {
+    private WithDslContext(DatasourceExtension wDs, SQLDialect dialect, boolean withQueryStats,
+                           boolean withQueryPlans, boolean withFetchProbe, long fullScanThreshold,
+                           @Nullable Path queryPlanBaseline, @Nullable Path workloadDirectory) {
         this.wDs = wDs;
         this.dialect = dialect;
+        this.withQueryStats = withQueryStats;
+        this.withQueryPlans = withQueryPlans;
+        this.withFetchProbe = withFetchProbe;
+        this.fullScanThreshold = fullScanThreshold;
+        this.queryPlanBaseline = queryPlanBaseline;
+        this.workloadDirectory = workloadDirectory;
     }
 
     @Override
@@ -55,19 +119,127 @@ public final class WithDslContext implements BeforeAllCallback, ParameterResolve
         settings.setRenderNameCase(RenderNameCase.UPPER);
         settings.setRenderSchema(false);
 
-        DSLContext dslContext = DSL.using(ds, dialect, settings);
+        Configuration configuration = new DefaultConfiguration()
+                .set(ds)
+                .set(dialect)
+                .set(settings);
 
         final String catalog = getContextCatalog(context);
+        List<ExecuteListenerProvider> listeners = new ArrayList<>();
+        if (withQueryStats) {
+            QueryStatsListener queryStatsListener = new QueryStatsListener();
+            listeners.add(new DefaultExecuteListenerProvider(queryStatsListener));
+            getStore(context).put(P_QUERY_STATS_LISTENER + catalog, queryStatsListener);
+        }
+        if (withQueryPlans) {
+            QueryPlanListener queryPlanListener = new QueryPlanListener();
+            listeners.add(new DefaultExecuteListenerProvider(queryPlanListener));
+            getStore(context).put(P_QUERY_PLAN_LISTENER + catalog, queryPlanListener);
+        }
+        if (withFetchProbe) {
+            FetchProbeListener fetchProbeListener = new FetchProbeListener();
+            listeners.add(new DefaultExecuteListenerProvider(fetchProbeListener));
+            getStore(context).put(P_FETCH_PROBE_LISTENER + catalog, fetchProbeListener);
+        }
+        if (workloadDirectory != null) {
+            WorkloadFile workloadFile = WorkloadFile.create(workloadDirectory.resolve(
+                    context.getRequiredTestClass().getName() + '-' + catalog + ".workload.gz"));
+            WorkloadRecorder workloadRecorder = new WorkloadRecorder(workloadFile);
+            listeners.add(new DefaultExecuteListenerProvider(workloadRecorder));
+            getStore(context).put(P_WORKLOAD_FILE + catalog, workloadFile);
+            getStore(context).put(P_WORKLOAD_RECORDER + catalog, workloadRecorder);
+        }
+        configuration.set(listeners.toArray(new ExecuteListenerProvider[0]));
+
+        DSLContext dslContext = DSL.using(configuration);
+
         getStore(context).put(P_DSL_DIALECT + catalog, dialect);
         getStore(context).put(P_DSL_CONTEXT + catalog, dslContext);
     }
 
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        QueryStatsListener queryStatsListener = getStore(context).get(P_QUERY_STATS_LISTENER + catalog, QueryStatsListener.class);
+        if (queryStatsListener != null) {
+            getStore(context).put(P_QUERY_STATS + catalog, queryStatsListener.reset());
+        }
+        FetchProbeListener fetchProbeListener = getStore(context).get(P_FETCH_PROBE_LISTENER + catalog, FetchProbeListener.class);
+        if (fetchProbeListener != null) {
+            getStore(context).put(P_FETCH_STATS + catalog, fetchProbeListener.reset());
+        }
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        QueryStats queryStats = getStore(context).get(P_QUERY_STATS + catalog, QueryStats.class);
+        if (queryStats != null) {
+            queryStats.clear();
+        }
+        FetchProbeListener fetchProbeListener = getStore(context).get(P_FETCH_PROBE_LISTENER + catalog, FetchProbeListener.class);
+        if (fetchProbeListener != null) {
+            fetchProbeListener.start();
+        }
+        WorkloadRecorder workloadRecorder = getStore(context).get(P_WORKLOAD_RECORDER + catalog, WorkloadRecorder.class);
+        if (workloadRecorder != null) {
+            workloadRecorder.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        FetchProbeListener fetchProbeListener = getStore(context).get(P_FETCH_PROBE_LISTENER + catalog, FetchProbeListener.class);
+        if (fetchProbeListener != null) {
+            fetchProbeListener.stop();
+        }
+        WorkloadRecorder workloadRecorder = getStore(context).get(P_WORKLOAD_RECORDER + catalog, WorkloadRecorder.class);
+        if (workloadRecorder != null) {
+            workloadRecorder.stop();
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        QueryPlanListener queryPlanListener = getStore(context).get(P_QUERY_PLAN_LISTENER + catalog, QueryPlanListener.class);
+        if (queryPlanListener == null) {
+            return;
+        }
+
+        String fullScans = queryPlanListener.explainPending(wDs.getDataSource(context)).stream()
+                .flatMap(plan -> plan.fullScansAbove(fullScanThreshold).entrySet().stream()
+                        .map(scan -> String.format("  %s: %d rows scanned by%n    %s", scan.getKey(), scan.getValue(), plan.sql)))
+                .collect(Collectors.joining(System.lineSeparator()));
+        if (!fullScans.isEmpty()) {
+            throw new AssertionError("Full table scans above " + fullScanThreshold + " rows:" + System.lineSeparator() + fullScans);
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        QueryPlanListener queryPlanListener = getStore(context).get(P_QUERY_PLAN_LISTENER + catalog, QueryPlanListener.class);
+        if (queryPlanListener == null || queryPlanBaseline == null) {
+            return;
+        }
+
+        List<String> regressions = new QueryPlanBaseline(queryPlanBaseline).check(queryPlanListener.plans());
+        if (!regressions.isEmpty()) {
+            throw new AssertionError("Query plan regressions against " + queryPlanBaseline + ":"
+                    + System.lineSeparator() + String.join(System.lineSeparator(), regressions));
+        }
+    }
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
         Class<?> type = parameterContext.getParameter().getType();
         final String catalog = getContextCatalog(extensionContext);
 
-        return (DSLContext.class.equals(type) || SQLDialect.class.equals(type))
+        return (DSLContext.class.equals(type) || SQLDialect.class.equals(type)
+                || (QueryStats.class.equals(type) && withQueryStats)
+                || (FetchStats.class.equals(type) && withFetchProbe))
                 && catalog.equals(getCatalogForParameter(parameterContext, extensionContext));
     }
 
@@ -90,6 +262,12 @@ public final class WithDslContext implements BeforeAllCallback, ParameterResolve
 
         } else if (SQLDialect.class.equals(type)) {
             return getStore(extensionContext).get(P_DSL_DIALECT + catalog);
+
+        } else if (QueryStats.class.equals(type)) {
+            return getStore(extensionContext).get(P_QUERY_STATS + catalog);
+
+        } else if (FetchStats.class.equals(type)) {
+            return getStore(extensionContext).get(P_FETCH_STATS + catalog);
         }
 
         throw new IllegalStateException(getClass().getName() + " must be static and package-protected !");
@@ -115,6 +293,12 @@ public final class WithDslContext implements BeforeAllCallback, ParameterResolve
     public static class WithDslContextBuilder {
         private DatasourceExtension wDs;
         private SQLDialect dialect = SQLDialect.H2;
+        private boolean withQueryStats = false;
+        private boolean withQueryPlans = false;
+        private boolean withFetchProbe = false;
+        private long fullScanThreshold = DEFAULT_FULL_SCAN_THRESHOLD;
+        private Path queryPlanBaseline = null;
+        private Path workloadDirectory = null;
 
         public WithDslContextBuilder setDatasourceExtension(DatasourceExtension wDs) {
             this.wDs = wDs;
@@ -126,9 +310,83 @@ public final class WithDslContext implements BeforeAllCallback, ParameterResolve
             return this;
         }
 
+        /**
+         * Record the statements executed by each test in a {@link QueryStats} injectable as parameter.
+         *
+         * @param withQueryStats {@code true} to record the statistics.
+         * @return The current builder
+         */
+        public WithDslContextBuilder recordQueryStats(boolean withQueryStats) {
+            this.withQueryStats = withQueryStats;
+            return this;
+        }
+
+        /**
+         * Explain the distinct SELECT executed by each test with H2 {@code EXPLAIN ANALYZE}.
+         *
+         * @param withQueryPlans {@code true} to capture the query plans.
+         * @return The current builder
+         */
+        public WithDslContextBuilder captureQueryPlans(boolean withQueryPlans) {
+            this.withQueryPlans = withQueryPlans;
+            return this;
+        }
+
+        /**
+         * Record the rows fetched by each test, materialized or streamed, and the heap high watermark in a
+         * {@link FetchStats} injectable as parameter.
+         *
+         * @param withFetchProbe {@code true} to record the fetches.
+         * @return The current builder
+         */
+        public WithDslContextBuilder probeFetches(boolean withFetchProbe) {
+            this.withFetchProbe = withFetchProbe;
+            return this;
+        }
+
+        /**
+         * <p>Set the count of scanned rows above which a full table scan fails the test.</p>
+         * <p>By default, the threshold is {@value DEFAULT_FULL_SCAN_THRESHOLD} rows.</p>
+         *
+         * @param fullScanThreshold The maximum count of rows of a fully scanned table.
+         * @return The current builder
+         */
+        public WithDslContextBuilder setFullScanThreshold(long fullScanThreshold) {
+            this.fullScanThreshold = fullScanThreshold;
+            return this;
+        }
+
+        /**
+         * <p>Set the file storing the access paths of the queries.</p>
+         * <p>The file is created if missing and the plans of the new queries are added after each test class.
+         * The test class fails if a table read through an index in the baseline is now fully scanned.</p>
+         *
+         * @param queryPlanBaseline The baseline file, usually kept under version control.
+         * @return The current builder
+         */
+        public WithDslContextBuilder setQueryPlanBaseline(Path queryPlanBaseline) {
+            this.queryPlanBaseline = queryPlanBaseline;
+            return this;
+        }
+
+        /**
+         * <p>Record the statements executed by the tests, with their bind values, in a workload file.</p>
+         * <p>A file is written by test class and catalog, replacing the previous one. It is closed after the test
+         * class and can be replayed with {@link WorkloadReplay}.</p>
+         *
+         * @param workloadDirectory The directory of the workload files.
+         * @return The current builder
+         */
+        public WithDslContextBuilder recordWorkload(Path workloadDirectory) {
+            this.workloadDirectory = workloadDirectory;
+            return this;
+        }
+
         public WithDslContext build() {
             Objects.requireNonNull(wDs, "DataSource is mandatory for building DSLContext !");
-            return new WithDslContext(wDs, dialect);
+            return new WithDslContext(wDs, dialect, withQueryStats,
+                    withQueryPlans || queryPlanBaseline != null, withFetchProbe, fullScanThreshold, queryPlanBaseline,
+                    workloadDirectory);
         }
     }
 }
@@ -7,7 +7,6 @@ import lombok.EqualsAndHashCode;
 import org.flywaydb.core.api.configuration.ClassicConfiguration;
 import org.jooq.DSLContext;
 import org.jooq.Field;
-import org.jooq.InsertValuesStepN;
 import org.jooq.Record;
 import org.jooq.SQLDialect;
 import org.jooq.TableField;
@@ -21,8 +20,14 @@ import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -84,6 +89,8 @@ public final class WithFlywaySchemaHistory implements BeforeAllCallback, BeforeE
     @VisibleForTesting
     static final String DEFAULT_TABLE_NAME = new ClassicConfiguration().getTable();
 
+    private static final String P_HISTORY = "flywayHistory_";
+
     private final DatasourceExtension dataSourceExtension;
     private final ImmutableList<FlywayVersion> versions;
     private final String tableName;
@@ -103,33 +110,38 @@ public final class WithFlywaySchemaHistory implements BeforeAllCallback, BeforeE
 
         dslContext.dropTableIfExists(flywayTable).execute();
         dslContext.createTable(flywayTable).columns(flywayTable.allFields).execute();
+
+        getStore(extensionContext).put(getHistoryKey(extensionContext), new History(dslContext, flywayTable));
     }
 
     @Override
     public void beforeEach(ExtensionContext extensionContext) {
         final DataSource dataSource = getDataSource(extensionContext);
-        final FlywayTable flywayTable = getFlywayTable(extensionContext);
+        final History history = getStore(extensionContext).get(getHistoryKey(extensionContext), History.class);
+        if (history == null) {
+            throw new IllegalStateException(getClass().getName() + " must be static and package-protected !");
+        }
 
-        final DSLContext dslContext = DSL.using(dataSource, SQLDialect.H2);
+        try (Connection conn = dataSource.getConnection()) {
+            if (history.fingerprint != null && history.fingerprint.equals(history.readFingerprint(conn))) {
+                return;
+            }
+            history.rewrite(conn, versions);
+            history.fingerprint = history.readFingerprint(conn);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to write Flyway history into " + tableName, e);
+        }
+    }
+
+    /**
+     * The schema is part of the key, many catalogs of a test class having each a history table of the same name.
+     */
+    private String getHistoryKey(ExtensionContext context) {
+        return P_HISTORY + dataSourceExtension.getCatalog(context) + '.' + tableName;
+    }
 
-        dslContext.deleteFrom(flywayTable).execute();
-
-        final AtomicInteger installedRank = new AtomicInteger();
-        final InsertValuesStepN<Record> query = dslContext.insertInto(flywayTable)
-                .columns(flywayTable.allFields);
-        versions.stream()
-                .map(version -> Arrays.asList(installedRank.addAndGet(1),
-                        version.version,
-                        version.description,
-                        version.type,
-                        version.script,
-                        version.checksum,
-                        version.installedBy,
-                        version.installationDate,
-                        version.executionTime,
-                        version.success
-                )).forEach(query::values);
-        query.execute();
+    private ExtensionContext.Store getStore(ExtensionContext context) {
+        return context.getStore(ExtensionContext.Namespace.create(getClass().getName()));
     }
 
     private DataSource getDataSource(ExtensionContext context) {
@@ -208,6 +220,85 @@ public final class WithFlywaySchemaHistory implements BeforeAllCallback, BeforeE
         }
     }
 
+    /**
+     * Statements on the history table, rendered once by test class.
+     * <p>
+     * The fingerprint is the count of rows and the sum of the hashes of the rows. When the table still has the
+     * fingerprint read after the last rewrite, the rewrite is skipped.
+     * </p>
+     */
+    private static final class History {
+        private final String deleteSql;
+        private final String insertSql;
+        private final String fingerprintSql;
+        private List<Object> fingerprint;
+
+        History(DSLContext dslContext, FlywayTable flywayTable) {
+            this.deleteSql = dslContext.deleteFrom(flywayTable).getSQL();
+            this.insertSql = dslContext.insertInto(flywayTable)
+                    .columns(flywayTable.allFields)
+                    .values(Collections.nCopies(flywayTable.allFields.size(), null))
+                    .getSQL();
+            Field<?>[] columns = flywayTable.allFields.stream()
+                    .map(field -> DSL.coalesce(field.cast(String.class), DSL.inline("")))
+                    .toArray(Field[]::new);
+            this.fingerprintSql = dslContext.select(DSL.count(),
+                    DSL.sum(DSL.field("ORA_HASH({0})", Long.class, DSL.concat(separated(columns)))))
+                    .from(flywayTable)
+                    .getSQL();
+        }
+
+        private static Field<?>[] separated(Field<?>[] columns) {
+            Field<?>[] separated = new Field<?>[columns.length * 2 - 1];
+            for (int i = 0; i < columns.length; i++) {
+                separated[i * 2] = columns[i];
+                if (i > 0) {
+                    separated[i * 2 - 1] = DSL.inline("|");
+                }
+            }
+            return separated;
+        }
+
+        List<Object> readFingerprint(Connection conn) throws SQLException {
+            try (Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery(fingerprintSql)) {
+                rs.next();
+                return Arrays.asList(rs.getLong(1), rs.getObject(2));
+            }
+        }
+
+        void rewrite(Connection conn, List<FlywayVersion> versions) throws SQLException {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement delete = conn.createStatement();
+                 PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                delete.executeUpdate(deleteSql);
+                int installedRank = 0;
+                for (FlywayVersion version : versions) {
+                    int i = 0;
+                    insert.setObject(++i, ++installedRank);
+                    insert.setObject(++i, version.version);
+                    insert.setObject(++i, version.description);
+                    insert.setObject(++i, (version.type != null) ? version.type.name() : null);
+                    insert.setObject(++i, version.script);
+                    insert.setObject(++i, version.checksum);
+                    insert.setObject(++i, version.installedBy);
+                    insert.setObject(++i, (version.installationDate != null) ? Timestamp.from(version.installationDate) : null);
+                    insert.setObject(++i, version.executionTime);
+                    insert.setObject(++i, version.success);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
     /**
      * Internal Flyway JOOQ table.
      */
@@ -232,7 +323,7 @@ public final class WithFlywaySchemaHistory implements BeforeAllCallback, BeforeE
         final TableField<Record, Integer> executionTime = createField(DSL.name("execution_time"), SQLDataType.INTEGER, this, "");
         final TableField<Record, Boolean> success = createField(DSL.name("success"), SQLDataType.BOOLEAN, this, "");
 
-        private final ImmutableList<Field<?>> allFields = ImmutableList.of(
+        final ImmutableList<Field<?>> allFields = ImmutableList.of(
                 installedRank,
                 version,
                 description,
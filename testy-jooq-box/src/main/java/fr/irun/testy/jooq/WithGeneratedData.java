@@ -0,0 +1,144 @@
+package fr.irun.testy.jooq;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Fill a table with a large count of generated rows, once before all the tests of the class.
+ * <p>
+ * The rows are generated by H2 from {@code SYSTEM_RANGE(1, rowCount)}, without building them in Java. The value of
+ * each column is a SQL expression which can use the row number {@code X}:
+ * </p>
+ * <pre><code>
+ * private static final WithGeneratedData wLargeTable = WithGeneratedData.builder()
+ *         .setDatasourceExtension(wDataSource)
+ *         .setTable("JEDI")
+ *         .setRowCount(1_000_000)
+ *         .addColumn("FIRST_NAME", "'Clone'")
+ *         .addColumn("LAST_NAME", "CONCAT('CT-', X)")
+ *         .build();
+ *
+ * {@literal @}RegisterExtension
+ * static final ChainedExtension chain = ChainedExtension
+ *         .outer(wDataSource)
+ *         .append(wDatabaseLoaded)
+ *         .append(wLargeTable)
+ *         .append(wDslContext)
+ *         .register();
+ * </code></pre>
+ * <p>
+ * The generated rows are kept for all the tests of the class. The table shall not be reset by a
+ * {@link WithSampleDataLoaded}.
+ * </p>
+ */
+public final class WithGeneratedData implements BeforeAllCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WithGeneratedData.class);
+    private static final String P_GENERATED = "generated_";
+
+    private final DatasourceExtension wDs;
+    private final String table;
+    private final long rowCount;
+    private final Map<String, String> columns;
+
+    private WithGeneratedData(DatasourceExtension wDs, String table, long rowCount, Map<String, String> columns) {
+        this.wDs = wDs;
+        this.table = table;
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws SQLException {
+        String key = P_GENERATED + wDs.getCatalog(context) + '.' + table;
+        ExtensionContext.Store store = context.getStore(Namespace.create(getClass().getName()));
+        if (store.get(key) != null) {
+            // Nested test class, the rows were generated for the enclosing class
+            return;
+        }
+
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns.keySet()) + ") "
+                + "SELECT " + String.join(", ", columns.values()) + " FROM SYSTEM_RANGE(1, " + rowCount + ")";
+        DataSource dataSource = Objects.requireNonNull(wDs.getDataSource(context), "Datasource not found in Store !");
+        long begin = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+        LOGGER.debug("{} rows generated in {} in {} ms", rowCount, table, (System.nanoTime() - begin) / 1_000_000);
+        store.put(key, rowCount);
+    }
+
+    public static WithGeneratedDataBuilder builder() {
+        return new WithGeneratedDataBuilder();
+    }
+
+    /**
+     * Builder for {@link WithGeneratedData}
+     */
+    public static class WithGeneratedDataBuilder {
+        private DatasourceExtension wDs;
+        private String table;
+        private long rowCount = 100_000;
+        private final Map<String, String> columns = new LinkedHashMap<>();
+
+        public WithGeneratedDataBuilder setDatasourceExtension(DatasourceExtension wDs) {
+            this.wDs = wDs;
+            return this;
+        }
+
+        /**
+         * <p>Set the name of the filled table, created by the migrations.</p>
+         * <p>This setter is mandatory.</p>
+         *
+         * @param table The table name.
+         * @return The current builder
+         */
+        public WithGeneratedDataBuilder setTable(String table) {
+            this.table = table;
+            return this;
+        }
+
+        /**
+         * Set the count of generated rows. By default, 100 000.
+         *
+         * @param rowCount The count of rows.
+         * @return The current builder
+         */
+        public WithGeneratedDataBuilder setRowCount(long rowCount) {
+            this.rowCount = rowCount;
+            return this;
+        }
+
+        /**
+         * Set the value of a column. The columns without value are left to their default.
+         *
+         * @param column     The column name.
+         * @param expression The SQL expression of the value, {@code X} being the row number from 1.
+         * @return The current builder
+         */
+        public WithGeneratedDataBuilder addColumn(String column, String expression) {
+            this.columns.put(column, expression);
+            return this;
+        }
+
+        public WithGeneratedData build() {
+            Objects.requireNonNull(wDs, "DataSource is mandatory for generating data !");
+            Objects.requireNonNull(table, "A table was mandatory !");
+            if (columns.isEmpty()) {
+                throw new IllegalArgumentException("At least one column is mandatory !");
+            }
+            return new WithGeneratedData(wDs, table, rowCount, new LinkedHashMap<>(columns));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package fr.irun.testy.jooq;
 
 import fr.irun.testy.jooq.annotations.DbCatalogName;
+import fr.irun.testy.jooq.model.DatabaseStorage;
+import fr.irun.testy.jooq.model.DatabaseTeardown;
 import fr.irun.testy.jooq.model.DatabaseTraceLevel;
 import org.h2.jdbcx.JdbcDataSource;
 import org.h2.tools.Server;
@@ -16,9 +18,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Allow to create an H2 in-memory database.
@@ -47,6 +57,26 @@ import java.util.UUID;
  * <p>
  * For inject the auto-generated catalog name use {@link DbCatalogName} annotation
  * </p>
+ * <p>
+ * By default, the data are stored on the JVM heap. For large datasets, {@link DatabaseStorage#NIO_MAPPED} stores them
+ * in a temporary directory read through memory-mapped files, the directory being deleted after all the tests:
+ * </p>
+ * <pre><code>
+ *     {@literal @}RegisterExtension
+ *     static WithInMemoryDatasource wDs = WithInMemoryDatasource.builder()
+ *             .setStorage(DatabaseStorage.SPLIT_NIO_MAPPED)
+ *             .build();
+ * </code></pre>
+ * <p>
+ * By default, the database stays alive until the end of the JVM. With {@code setTeardown(DatabaseTeardown.SHUTDOWN)},
+ * it is shut down after all the tests to release its memory, see {@link DatabaseTeardown}. The size of the catalog and
+ * the heap released can be logged with {@code reportFootprint(true)}.
+ * </p>
+ * <p>
+ * With {@code doubleBuffered(true)}, two identical databases are created behind the injected DataSource.
+ * {@link WithSampleDataLoaded} then resets the sample data of the standby database while a test runs, and swaps the
+ * databases before the next test.
+ * </p>
  *
  * @see DbCatalogName
  */
@@ -57,39 +87,67 @@ public class WithInMemoryDatasource implements BeforeAllCallback, AfterAllCallba
     private static final String P_DATASOUCE = "datasource_";
     private static final String P_TCP_SERVER = "tcpServer";
     private static final String P_CATALOG = "catalog_";
+    private static final String P_STORAGE_DIR = "storageDir_";
+    private static final String P_URL = "url_";
 
     private final String catalog;
     private final boolean withTcpServer;
     private final boolean withReferentialIntegrity;
     private final DatabaseTraceLevel traceLevel;
+    private final DatabaseStorage storage;
+    private final DatabaseTeardown teardown;
+    private final boolean withFootprintReport;
+    private final boolean withDoubleBuffer;
 
     public WithInMemoryDatasource() {
         this.catalog = generateRandomCatalogName();
         this.withTcpServer = false;
         this.withReferentialIntegrity = true;
         this.traceLevel = DatabaseTraceLevel.OFF;
+        this.storage = DatabaseStorage.MEMORY;
+        this.teardown = DatabaseTeardown.NONE;
+        this.withFootprintReport = false;
+        this.withDoubleBuffer = false;
     }
 
-    private WithInMemoryDatasource(String catalog, boolean withTcpServer, boolean withReferentialIntegrity, DatabaseTraceLevel traceLevel) {
+    private WithInMemoryDatasource(String catalog, boolean withTcpServer, boolean withReferentialIntegrity,
+                                   DatabaseTraceLevel traceLevel, DatabaseStorage storage,
+                                   DatabaseTeardown teardown, boolean withFootprintReport, boolean withDoubleBuffer) {
         this.catalog = Objects.requireNonNull(catalog);
         this.withTcpServer = withTcpServer;
         this.withReferentialIntegrity = withReferentialIntegrity;
         this.traceLevel = traceLevel;
+        this.storage = Objects.requireNonNull(storage);
+        this.teardown = Objects.requireNonNull(teardown);
+        this.withFootprintReport = withFootprintReport;
+        this.withDoubleBuffer = withDoubleBuffer;
     }
 
     @Override
     public void beforeAll(ExtensionContext context) throws Exception {
         TimeZone.setDefault(TZ_UTC);
+        if (isInherited(context)) {
+            // Nested test class, the database of the enclosing class is used
+            return;
+        }
         Store store = getStore(context);
 
+        String databaseName = catalog;
+        if (storage.isFileBased) {
+            Path storageDir = Files.createTempDirectory("h2-" + catalog);
+            store.put(P_STORAGE_DIR + catalog, storageDir);
+            databaseName = storageDir.resolve(catalog).toAbsolutePath().toString();
+        }
+
         JdbcDataSource ds = new JdbcDataSource();
-        String databaseUrl = "jdbc:h2:mem:" + catalog + ";"
-                + "MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false;"
-                + "TRACE_LEVEL_SYSTEM_OUT=" + traceLevel.levelValue + ";"
-                + "INIT=CREATE SCHEMA IF NOT EXISTS " + catalog + "\\; "
-                + "SET SCHEMA " + catalog + "\\; "
-                + "SET REFERENTIAL_INTEGRITY " + Boolean.toString(withReferentialIntegrity).toUpperCase();
-        ds.setURL(databaseUrl);
+        ds.setURL(databaseUrl(storage.urlPrefix + databaseName, catalog, traceLevel, withReferentialIntegrity));
+        store.put(P_URL + catalog, ds.getURL());
+        DataSource dataSource = ds;
+        if (withDoubleBuffer) {
+            JdbcDataSource standby = new JdbcDataSource();
+            standby.setURL(databaseUrl(storage.urlPrefix + databaseName + "_standby", catalog, traceLevel, withReferentialIntegrity));
+            dataSource = new SwitchableDataSource(ds, standby);
+        }
         if (withTcpServer) {
             Server h2TcpServer = Server.createTcpServer("-tcpAllowOthers");
             Server server = h2TcpServer.start();
@@ -97,10 +155,29 @@ public class WithInMemoryDatasource implements BeforeAllCallback, AfterAllCallba
             store.put(P_TCP_SERVER, h2TcpServer);
         }
 
-        store.put(P_DATASOUCE + catalog, ds);
+        store.put(P_DATASOUCE + catalog, dataSource);
         store.put(P_CATALOG + catalog, catalog);
     }
 
+    /**
+     * Build the URL of an H2 database using the catalog as default schema.
+     *
+     * @param database                 The database, prefixed by its storage.
+     * @param catalog                  The schema created and set on each connection.
+     * @param traceLevel               The trace level of H2.
+     * @param withReferentialIntegrity {@code false} to disable the foreign keys checks.
+     * @return The JDBC URL of the database.
+     */
+    static String databaseUrl(String database, String catalog, DatabaseTraceLevel traceLevel,
+                              boolean withReferentialIntegrity) {
+        return "jdbc:h2:" + database + ";"
+                + "MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false;"
+                + "TRACE_LEVEL_SYSTEM_OUT=" + traceLevel.levelValue + ";"
+                + "INIT=CREATE SCHEMA IF NOT EXISTS " + catalog + "\\; "
+                + "SET SCHEMA " + catalog + "\\; "
+                + "SET REFERENTIAL_INTEGRITY " + Boolean.toString(withReferentialIntegrity).toUpperCase();
+    }
+
     @Override
     public String getCatalog(ExtensionContext context) {
         return getStore(context).get(P_CATALOG + catalog, String.class);
@@ -111,13 +188,96 @@ public class WithInMemoryDatasource implements BeforeAllCallback, AfterAllCallba
         return getStore(context).get(P_DATASOUCE + catalog, DataSource.class);
     }
 
+    /**
+     * Retrieve the JDBC URL of the database, to open connections with another driver on the same catalog.
+     * <p>
+     * For a double buffered data source, this is the URL of the first active database.
+     * </p>
+     *
+     * @param context The extension context
+     * @return The JDBC URL
+     */
+    public String getUrl(ExtensionContext context) {
+        return getStore(context).get(P_URL + catalog, String.class);
+    }
+
     @Override
     public void afterAll(ExtensionContext context) {
+        if (isInherited(context)) {
+            return;
+        }
         Store store = getStore(context);
+        DataSource dataSource = getDataSource(context);
+        Path storageDir = store.get(P_STORAGE_DIR + catalog, Path.class);
+        // The files cannot be deleted while the database is open
+        DatabaseTeardown effectiveTeardown = (storageDir != null) ? DatabaseTeardown.SHUTDOWN : teardown;
+
+        DatabaseFootprint footprint = null;
+        long heapBefore = -1;
+        if (withFootprintReport) {
+            try {
+                footprint = DatabaseFootprint.measure(dataSource, catalog);
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to measure H2 catalog {}: {}", catalog, e.getMessage());
+            }
+            heapBefore = usedHeap();
+        }
+
+        if (effectiveTeardown.statement != null) {
+            execute(dataSource, effectiveTeardown.statement);
+            if (dataSource instanceof SwitchableDataSource) {
+                execute(((SwitchableDataSource) dataSource).standby(), effectiveTeardown.statement);
+            }
+        }
+
+        if (footprint != null) {
+            long heapReleased = (effectiveTeardown == DatabaseTeardown.NONE) ? -1 : Math.max(0, heapBefore - usedHeap());
+            footprint.log(catalog, heapReleased);
+        }
+
         Server tcpServer = store.get(P_TCP_SERVER, Server.class);
         if (tcpServer != null) {
             tcpServer.stop();
         }
+
+        if (storageDir != null) {
+            deleteRecursively(storageDir);
+        }
+    }
+
+    private boolean isInherited(ExtensionContext context) {
+        return context.getParent()
+                .map(parent -> getStore(parent).get(P_DATASOUCE + catalog) != null)
+                .orElse(false);
+    }
+
+    private static void execute(DataSource dataSource, String sql) {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to execute {} on H2 database: {}", sql, e.getMessage());
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete H2 file {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete H2 directory {}: {}", directory, e.getMessage());
+        }
     }
 
     @Override
@@ -171,6 +331,10 @@ public class WithInMemoryDatasource implements BeforeAllCallback, AfterAllCallba
         private boolean withTcpServer = false;
         private boolean withReferentialIntegrity = true;
         private DatabaseTraceLevel traceLevel = DatabaseTraceLevel.OFF;
+        private DatabaseStorage storage = DatabaseStorage.MEMORY;
+        private DatabaseTeardown teardown = DatabaseTeardown.NONE;
+        private boolean withFootprintReport = false;
+        private boolean withDoubleBuffer = false;
 
         public WithInMemoryDatasourceBuilder setCatalog(String catalog) {
             this.catalog = catalog;
@@ -192,8 +356,58 @@ public class WithInMemoryDatasource implements BeforeAllCallback, AfterAllCallba
             return this;
         }
 
+        /**
+         * Set where the data of the database are stored. By default, {@link DatabaseStorage#MEMORY}.
+         *
+         * @param storage The storage of the database.
+         * @return The current builder
+         */
+        public WithInMemoryDatasourceBuilder setStorage(DatabaseStorage storage) {
+            this.storage = storage;
+            return this;
+        }
+
+        /**
+         * Set the action run on the database after all the tests. By default, {@link DatabaseTeardown#NONE}.
+         * <p>
+         * The file based storages are always shut down, their files being deleted.
+         * </p>
+         *
+         * @param teardown The action run on the database.
+         * @return The current builder
+         */
+        public WithInMemoryDatasourceBuilder setTeardown(DatabaseTeardown teardown) {
+            this.teardown = teardown;
+            return this;
+        }
+
+        /**
+         * Log the tables, rows and pages of the catalog and the heap released by the teardown. Measuring the heap
+         * runs the garbage collector twice, this option slows down the tests.
+         *
+         * @param withFootprintReport {@code true} to log the footprint of the catalog.
+         * @return The current builder
+         */
+        public WithInMemoryDatasourceBuilder reportFootprint(boolean withFootprintReport) {
+            this.withFootprintReport = withFootprintReport;
+            return this;
+        }
+
+        /**
+         * Create two identical databases behind the DataSource, allowing {@link WithSampleDataLoaded} to reset the
+         * sample data of the next test while the current one runs.
+         *
+         * @param withDoubleBuffer {@code true} to create a standby database.
+         * @return The current builder
+         */
+        public WithInMemoryDatasourceBuilder doubleBuffered(boolean withDoubleBuffer) {
+            this.withDoubleBuffer = withDoubleBuffer;
+            return this;
+        }
+
         public WithInMemoryDatasource build() {
-            return new WithInMemoryDatasource(this.catalog, this.withTcpServer, this.withReferentialIntegrity, this.traceLevel);
+            return new WithInMemoryDatasource(this.catalog, this.withTcpServer, this.withReferentialIntegrity,
+                    this.traceLevel, this.storage, this.teardown, this.withFootprintReport, this.withDoubleBuffer);
         }
     }
 }
@@ -0,0 +1,208 @@
+package fr.irun.testy.jooq;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Decorate a {@link DatasourceExtension} to simulate the network between the application and a remote database.
+ * <p>
+ * Each round trip to the database, an execution of a statement or a transaction command, is delayed by the latency
+ * plus or minus a random jitter. When a bandwidth is set, the rows read from the result sets are also delayed
+ * according to their estimated size. The network is only simulated during the execution of the test methods, so the
+ * {@code BeforeEach} callbacks and methods, as the sample data loading, run at full speed.
+ * </p>
+ * <pre><code>
+ * private static final WithInMemoryDatasource wIMDataSource = WithInMemoryDatasource.builder()
+ *         .setCatalog("my_catalog")
+ *         .build();
+ * private static final WithNetworkLatency wDataSource = WithNetworkLatency.builder()
+ *         .setDatasourceExtension(wIMDataSource)
+ *         .setLatency(Duration.ofMillis(2))
+ *         .setJitter(Duration.ofMillis(1))
+ *         .build();
+ * private static final WithDslContext wDslContext = WithDslContext.builder()
+ *         .setDatasourceExtension(wDataSource)
+ *         .build();
+ *
+ * {@literal @}RegisterExtension
+ * static final ChainedExtension chain = ChainedExtension
+ *         .outer(wIMDataSource)
+ *         .append(wDataSource)
+ *         .append(wDslContext)
+ *         .register();
+ * </code></pre>
+ * <p>
+ * The simulated network activity of each test is logged and can be injected as {@link NetworkStats} parameter. The
+ * {@link DataSource} parameters are still resolved by the decorated extension and are not delayed, the extensions
+ * built on this one, as {@link WithDslContext}, use the delayed DataSource.
+ * </p>
+ */
+public final class WithNetworkLatency implements BeforeAllCallback, BeforeTestExecutionCallback,
+        AfterTestExecutionCallback, ParameterResolver, DatasourceExtension {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WithNetworkLatency.class);
+
+    private static final String P_DATASOURCE = "datasource_";
+    private static final String P_SIMULATOR = "simulator_";
+    private static final String P_NETWORK_STATS = "networkStats_";
+
+    private final DatasourceExtension wDs;
+    private final Duration latency;
+    private final Duration jitter;
+    private final long bytesPerSecond;
+
+    private WithNetworkLatency(DatasourceExtension wDs, Duration latency, Duration jitter, long bytesPerSecond) {
+        this.wDs = wDs;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        final String catalog = getCatalog(context);
+        DataSource dataSource = Objects.requireNonNull(wDs.getDataSource(context), "Datasource not found in Store !");
+        NetworkSimulator simulator = new NetworkSimulator(latency, jitter, bytesPerSecond);
+
+        Store store = getStore(context);
+        store.put(P_SIMULATOR + catalog, simulator);
+        store.put(P_DATASOURCE + catalog, simulator.wrap(dataSource));
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        final String catalog = getCatalog(context);
+        NetworkSimulator simulator = getStore(context).get(P_SIMULATOR + catalog, NetworkSimulator.class);
+        if (simulator != null) {
+            getStore(context).put(P_NETWORK_STATS + catalog, simulator.start());
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        final String catalog = getCatalog(context);
+        NetworkSimulator simulator = getStore(context).get(P_SIMULATOR + catalog, NetworkSimulator.class);
+        if (simulator != null) {
+            simulator.stop();
+        }
+        NetworkStats stats = getStore(context).get(P_NETWORK_STATS + catalog, NetworkStats.class);
+        if (stats != null) {
+            LOGGER.info("Simulated network on {} for {}: {}", catalog, context.getDisplayName(), stats);
+        }
+    }
+
+    @Override
+    public DataSource getDataSource(ExtensionContext context) {
+        return getStore(context).get(P_DATASOURCE + getCatalog(context), DataSource.class);
+    }
+
+    @Override
+    public String getCatalog(ExtensionContext context) {
+        return Objects.requireNonNull(wDs.getCatalog(context), "Catalog not found in context Store !");
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return NetworkStats.class.equals(parameterContext.getParameter().getType())
+                && getCatalog(extensionContext).equals(getCatalogForParameter(parameterContext, extensionContext));
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        if (NetworkStats.class.equals(parameterContext.getParameter().getType())) {
+            NetworkStats stats = getStore(extensionContext).get(
+                    P_NETWORK_STATS + getCatalogForParameter(parameterContext, extensionContext), NetworkStats.class);
+            return (stats != null) ? stats : new NetworkStats();
+        }
+        throw new IllegalStateException(getClass().getName() + " must be static and package-protected !");
+    }
+
+    private String getCatalogForParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.findAnnotation(Named.class)
+                .map(Named::value)
+                .orElseGet(() -> getCatalog(extensionContext));
+    }
+
+    private Store getStore(ExtensionContext context) {
+        return context.getStore(Namespace.create(getClass().getName()));
+    }
+
+    public static WithNetworkLatencyBuilder builder() {
+        return new WithNetworkLatencyBuilder();
+    }
+
+    /**
+     * Builder for {@link WithNetworkLatency}
+     */
+    public static class WithNetworkLatencyBuilder {
+        private DatasourceExtension wDs;
+        private Duration latency = Duration.ofMillis(1);
+        private Duration jitter = Duration.ZERO;
+        private long bytesPerSecond = 0;
+
+        /**
+         * <p>Set the extension providing the DataSource to delay.</p>
+         * <p>This setter is mandatory.</p>
+         *
+         * @param wDs The decorated extension.
+         * @return The current builder
+         */
+        public WithNetworkLatencyBuilder setDatasourceExtension(DatasourceExtension wDs) {
+            this.wDs = wDs;
+            return this;
+        }
+
+        /**
+         * Set the delay added to each round trip to the database. By default, 1 ms.
+         *
+         * @param latency The round trip latency.
+         * @return The current builder
+         */
+        public WithNetworkLatencyBuilder setLatency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Set the maximum random variation of the latency, added or subtracted to each round trip. By default, none.
+         *
+         * @param jitter The maximum variation of the latency.
+         * @return The current builder
+         */
+        public WithNetworkLatencyBuilder setJitter(Duration jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Set the bandwidth used to delay the rows read from the result sets. By default, unlimited.
+         *
+         * @param bytesPerSecond The bandwidth in bytes by second, 0 for unlimited.
+         * @return The current builder
+         */
+        public WithNetworkLatencyBuilder setBandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        public WithNetworkLatency build() {
+            Objects.requireNonNull(wDs, "DataSource extension is mandatory for simulating the network !");
+            if (latency.isNegative() || jitter.isNegative() || bytesPerSecond < 0) {
+                throw new IllegalArgumentException("Latency, jitter and bandwidth must not be negative !");
+            }
+            return new WithNetworkLatency(wDs, latency, jitter, bytesPerSecond);
+        }
+    }
+}
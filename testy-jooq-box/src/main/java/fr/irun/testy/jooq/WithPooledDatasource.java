@@ -0,0 +1,210 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.annotations.DbCatalogName;
+import fr.irun.testy.jooq.model.CatalogReset;
+import org.flywaydb.core.api.Location;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import javax.inject.Named;
+import javax.sql.DataSource;
+import java.util.Objects;
+
+/**
+ * Lease an already migrated H2 catalog from a pool shared by all the test classes.
+ * <p>
+ * The first test class using a catalog starts the migration of {@code poolSize} identical databases in background.
+ * Each test class then leases one of them for all its tests, and returns it to the pool after all tests. The
+ * returned catalog is reset in background, see {@link CatalogReset}, before being leased again.
+ * </p>
+ * <p>
+ * This extension replaces the pair {@link WithInMemoryDatasource} and {@link WithDatabaseLoaded} when the test
+ * classes are run concurrently:
+ * </p>
+ * <pre><code>
+ * private static final WithPooledDatasource wDataSource = WithPooledDatasource.builder()
+ *         .setCatalog("my_catalog")
+ *         .setPoolSize(4)
+ *         .build();
+ * private static final WithDslContext wDslContext = WithDslContext.builder()
+ *         .setDatasourceExtension(wDataSource)
+ *         .build();
+ *
+ * {@literal @}RegisterExtension
+ * static final ChainedExtension chain = ChainedExtension
+ *         .outer(wDataSource)
+ *         .append(wDslContext)
+ *         .register();
+ * </code></pre>
+ * <p>
+ * The pool is defined by the catalog and the migrations location. Its size is fixed by the first test class using
+ * it.
+ * </p>
+ */
+public final class WithPooledDatasource implements BeforeAllCallback, AfterAllCallback, ParameterResolver, DatasourceExtension {
+    private static final String P_DATASOURCE = "datasource_";
+    private static final String P_CATALOG = "catalog_";
+
+    private final String catalog;
+    private final Location location;
+    private final int poolSize;
+    private final CatalogReset reset;
+
+    private WithPooledDatasource(String catalog, Location location, int poolSize, CatalogReset reset) {
+        this.catalog = catalog;
+        this.location = location;
+        this.poolSize = poolSize;
+        this.reset = reset;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        if (isInherited(context)) {
+            return;
+        }
+        Store store = getStore(context);
+        store.put(P_DATASOURCE + catalog, getPool(context).lease());
+        store.put(P_CATALOG + catalog, catalog);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (isInherited(context)) {
+            return;
+        }
+        JdbcDataSource dataSource = getStore(context).remove(P_DATASOURCE + catalog, JdbcDataSource.class);
+        if (dataSource != null) {
+            getPool(context).release(dataSource, reset);
+        }
+    }
+
+    @Override
+    public DataSource getDataSource(ExtensionContext context) {
+        return getStore(context).get(P_DATASOURCE + catalog, DataSource.class);
+    }
+
+    @Override
+    public String getCatalog(ExtensionContext context) {
+        return getStore(context).get(P_CATALOG + catalog, String.class);
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        if (DataSource.class.equals(type)) {
+            return catalog.equals(getCatalogForParameter(parameterContext));
+        } else {
+            return String.class.equals(type) && parameterContext.isAnnotated(DbCatalogName.class);
+        }
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        if (DataSource.class.equals(type)) {
+            return getStore(extensionContext).get(P_DATASOURCE + getCatalogForParameter(parameterContext), DataSource.class);
+        } else if (String.class.equals(type) && parameterContext.isAnnotated(DbCatalogName.class)) {
+            return getStore(extensionContext).get(P_CATALOG + getCatalogForParameter(parameterContext));
+        }
+        throw new IllegalStateException(getClass().getName() + " must be static and package-protected !");
+    }
+
+    private String getCatalogForParameter(ParameterContext parameterContext) {
+        return parameterContext.findAnnotation(Named.class)
+                .map(Named::value)
+                .orElse(catalog);
+    }
+
+    private CatalogPool getPool(ExtensionContext context) {
+        return context.getRoot().getStore(Namespace.create(CatalogPool.class.getName()))
+                .getOrComputeIfAbsent(catalog + '@' + location.getDescriptor(),
+                        key -> new CatalogPool(catalog, location, poolSize), CatalogPool.class);
+    }
+
+    private boolean isInherited(ExtensionContext context) {
+        return context.getParent()
+                .map(parent -> getStore(parent).get(P_DATASOURCE + catalog) != null)
+                .orElse(false);
+    }
+
+    private Store getStore(ExtensionContext context) {
+        return context.getStore(Namespace.create(getClass().getName()));
+    }
+
+    public static WithPooledDatasourceBuilder builder() {
+        return new WithPooledDatasourceBuilder();
+    }
+
+    /**
+     * Builder for {@link WithPooledDatasource}
+     */
+    public static class WithPooledDatasourceBuilder {
+        private String catalog;
+        private Location location = null;
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        private CatalogReset reset = CatalogReset.RESTORE_TEMPLATE;
+
+        /**
+         * <p>Set the name of the pooled catalog, used as schema of the databases.</p>
+         * <p>This setter is mandatory.</p>
+         *
+         * @param catalog The catalog name.
+         * @return The current builder
+         */
+        public WithPooledDatasourceBuilder setCatalog(String catalog) {
+            this.catalog = catalog;
+            return this;
+        }
+
+        /**
+         * Set the location of the Flyway migrations. By default, {@code db/migration/catalog}.
+         *
+         * @param location The migration files location.
+         * @return The current builder
+         */
+        public WithPooledDatasourceBuilder setMigrationsLocation(String location) {
+            this.location = new Location(location);
+            return this;
+        }
+
+        /**
+         * Set the count of catalogs migrated in the pool. By default, the count of available processors.
+         *
+         * @param poolSize The count of catalogs.
+         * @return The current builder
+         */
+        public WithPooledDatasourceBuilder setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * Set the reset applied when the catalog is returned to the pool. By default,
+         * {@link CatalogReset#RESTORE_TEMPLATE}, a recycled catalog being then identical to a fresh one.
+         *
+         * @param reset The reset of the catalog.
+         * @return The current builder
+         */
+        public WithPooledDatasourceBuilder setReset(CatalogReset reset) {
+            this.reset = reset;
+            return this;
+        }
+
+        /**
+         * Build the {@link WithPooledDatasource} extension
+         *
+         * @return The extension
+         */
+        public WithPooledDatasource build() {
+            Objects.requireNonNull(catalog, "A catalog was mandatory !");
+            Location migrationsLocation = (location != null) ? location : new Location("classpath:db/migration/" + catalog);
+            return new WithPooledDatasource(catalog, migrationsLocation, poolSize, Objects.requireNonNull(reset));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package fr.irun.testy.jooq;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.RenderNameCase;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import javax.inject.Named;
+import java.util.Objects;
+
+/**
+ * Provide an R2DBC {@link ConnectionFactory} and a {@link ReactiveDslContext} on the H2 catalog of a
+ * {@link WithInMemoryDatasource}, to test the non-blocking data accesses.
+ * <p>Usage:</p>
+ * <pre><code>
+ * private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+ *         .setCatalog("my_catalog")
+ *         .build();
+ * private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+ *         .setDatasourceExtension(wDataSource)
+ *         .build();
+ * private static final WithReactiveDslContext wReactive = WithReactiveDslContext.builder()
+ *         .setDatasourceExtension(wDataSource)
+ *         .build();
+ *
+ * {@literal @}RegisterExtension
+ * static final ChainedExtension chain = ChainedExtension
+ *         .outer(wDataSource)
+ *         .append(wDatabaseLoaded)
+ *         .append(wReactive)
+ *         .register();
+ * </code></pre>
+ * <p>
+ * The connections are opened by r2dbc-h2 on the same in-memory database as the JDBC DataSource, so the schema and the
+ * sample data loaded through JDBC are visible to the reactive accesses.
+ * </p>
+ * <p>
+ * jOOQ 3.14 cannot execute its queries through R2DBC. The {@link ReactiveDslContext} renders them with jOOQ and
+ * executes them through the {@link ConnectionFactory}.
+ * </p>
+ */
+public final class WithReactiveDslContext implements BeforeAllCallback, ParameterResolver {
+    private static final String JDBC_PREFIX = "jdbc:h2:";
+    private static final String P_CONNECTION_FACTORY = "connectionFactory_";
+    private static final String P_REACTIVE_DSL = "reactiveDsl_";
+
+    private final WithInMemoryDatasource wDs;
+    private final SQLDialect dialect;
+
+    private WithReactiveDslContext(WithInMemoryDatasource wDs, SQLDialect dialect) {
+        this.wDs = wDs;
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        String url = Objects.requireNonNull(wDs.getUrl(context), "Database URL not found in Store !");
+
+        ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(JDBC_PREFIX.length()))
+                .build());
+
+        Settings settings = new Settings();
+        settings.setRenderNameCase(RenderNameCase.UPPER);
+        settings.setRenderSchema(false);
+        DSLContext dsl = DSL.using(dialect, settings);
+
+        getStore(context).put(P_CONNECTION_FACTORY + catalog, connectionFactory);
+        getStore(context).put(P_REACTIVE_DSL + catalog, new ReactiveDslContext(dsl, connectionFactory));
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        return (ConnectionFactory.class.equals(type) || ReactiveDslContext.class.equals(type))
+                && getContextCatalog(extensionContext).equals(getCatalogForParameter(parameterContext, extensionContext));
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        final String catalog = getCatalogForParameter(parameterContext, extensionContext);
+        if (ConnectionFactory.class.equals(type)) {
+            return getStore(extensionContext).get(P_CONNECTION_FACTORY + catalog);
+
+        } else if (ReactiveDslContext.class.equals(type)) {
+            return getStore(extensionContext).get(P_REACTIVE_DSL + catalog);
+        }
+
+        throw new IllegalStateException(getClass().getName() + " must be static and package-protected !");
+    }
+
+    /**
+     * Retrieve the {@link ReactiveDslContext} from the contextual extension Store
+     *
+     * @param context The extension context
+     * @return The reactive DSL of the catalog
+     */
+    public ReactiveDslContext getReactiveDslContext(ExtensionContext context) {
+        return getStore(context).get(P_REACTIVE_DSL + getContextCatalog(context), ReactiveDslContext.class);
+    }
+
+    private String getCatalogForParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.findAnnotation(Named.class)
+                .map(Named::value)
+                .orElseGet(() -> getContextCatalog(extensionContext));
+    }
+
+    private String getContextCatalog(ExtensionContext context) {
+        return Objects.requireNonNull(wDs.getCatalog(context), "Catalog not found in context Store !");
+    }
+
+    private Store getStore(ExtensionContext context) {
+        return context.getStore(Namespace.create(getClass().getName()));
+    }
+
+    public static WithReactiveDslContextBuilder builder() {
+        return new WithReactiveDslContextBuilder();
+    }
+
+    public static class WithReactiveDslContextBuilder {
+        private WithInMemoryDatasource wDs;
+        private SQLDialect dialect = SQLDialect.H2;
+
+        public WithReactiveDslContextBuilder setDatasourceExtension(WithInMemoryDatasource wDs) {
+            this.wDs = wDs;
+            return this;
+        }
+
+        public WithReactiveDslContextBuilder setDialect(SQLDialect dialect) {
+            this.dialect = dialect;
+            return this;
+        }
+
+        public WithReactiveDslContext build() {
+            Objects.requireNonNull(wDs, "In-memory DataSource is mandatory for building the ConnectionFactory !");
+            return new WithReactiveDslContext(wDs, dialect);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package fr.irun.testy.jooq;
 
 import com.google.common.collect.Lists;
+import fr.irun.testy.jooq.model.CsvDataSet;
 import fr.irun.testy.jooq.model.RelationalDataSet;
+import org.jooq.Configuration;
 import org.jooq.DSLContext;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.Name;
 import org.jooq.Query;
+import org.jooq.QueryPart;
 import org.jooq.TableRecord;
 import org.jooq.UpdatableRecord;
 import org.jooq.impl.DSL;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.Extension;
@@ -15,22 +21,45 @@ import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolver;
 
 import javax.inject.Named;
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
-public final class WithSampleDataLoaded implements BeforeAllCallback, BeforeEachCallback, ParameterResolver {
+/**
+ * Reset the content of the tables of the sample records before each test.
+ * <p>
+ * The sample data are jOOQ records, see {@link RelationalDataSet}, or CSV files loaded natively by H2, see
+ * {@link CsvDataSet}. The CSV data sets are loaded after the records.
+ * </p>
+ * <p>
+ * When the DataSource is double buffered, see {@link WithInMemoryDatasource.WithInMemoryDatasourceBuilder#doubleBuffered(boolean)},
+ * the reset is pipelined: the standby database is reset in background while a test runs, and {@code beforeEach}
+ * only waits for the end of this reset and swaps the databases. The injected DataSource and DSLContext always point
+ * to the active database.
+ * </p>
+ */
+public final class WithSampleDataLoaded implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, ParameterResolver {
     private static final String P_TRACKER = "sampleTracker_";
+    private static final String P_PIPELINE = "samplePipeline_";
 
     private final WithDslContext wDsl;
 
     private final List<? extends UpdatableRecord<?>> records;
+    private final List<CsvDataSet> csvDataSets;
 
-    private WithSampleDataLoaded(Extension wDsl, List<? extends UpdatableRecord<?>> records) {
+    private WithSampleDataLoaded(Extension wDsl, List<? extends UpdatableRecord<?>> records, List<CsvDataSet> csvDataSets) {
         this.wDsl = (WithDslContext) wDsl;
         this.records = records;
+        this.csvDataSets = csvDataSets;
     }
 
     @Override
@@ -39,6 +68,21 @@ public final class WithSampleDataLoaded implements BeforeAllCallback, BeforeEach
         getStore(context).put(P_TRACKER + catalog, new Tracker());
         DSLContext dslContext = wDsl.getDslContext(context);
         dslContext.attach(records);
+
+        DataSource dataSource = wDsl.getDatasourceExtension().getDataSource(context);
+        if (dataSource instanceof SwitchableDataSource) {
+            getStore(context).put(P_PIPELINE + catalog,
+                    new Pipeline(catalog, (SwitchableDataSource) dataSource, dslContext, records, csvDataSets));
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        final String catalog = getContextCatalog(context);
+        Pipeline pipeline = getStore(context).remove(P_PIPELINE + catalog, Pipeline.class);
+        if (pipeline != null) {
+            pipeline.close();
+        }
     }
 
     @Override
@@ -53,18 +97,44 @@ public final class WithSampleDataLoaded implements BeforeAllCallback, BeforeEach
             return;
         }
 
-        DSLContext dslContext = wDsl.getDslContext(context);
+        Pipeline pipeline = getStore(context).get(P_PIPELINE + catalog, Pipeline.class);
+        if (pipeline != null) {
+            pipeline.swap();
+        } else {
+            resetTables(wDsl.getDslContext(context), records, csvDataSets);
+        }
+    }
+
+    private static void resetTables(DSLContext dslContext, List<? extends UpdatableRecord<?>> records,
+                                    List<CsvDataSet> csvDataSets) {
         dslContext.transaction(tx -> {
             DSLContext txDsl = DSL.using(tx);
+            Lists.reverse(csvDataSets).stream()
+                    .filter(csv -> !csv.isNewTable)
+                    .map(csv -> txDsl.delete(DSL.table(DSL.name(csv.table))))
+                    .forEach(Query::execute);
             Lists.reverse(records).stream()
                     .map(TableRecord::getTable).distinct()
                     .map(txDsl::delete)
                     .forEach(Query::execute);
             records.forEach(r -> r.changed(true));
             txDsl.batchInsert(records).execute();
+            csvDataSets.forEach(csv -> loadCsv(txDsl, csv));
         });
     }
 
+    private static void loadCsv(DSLContext dslContext, CsvDataSet csv) {
+        QueryPart csvRead = DSL.sql("CSVREAD({0}, NULL, 'charset=UTF-8')", DSL.inline(csv.location));
+        if (csv.isNewTable) {
+            dslContext.dropTableIfExists(DSL.name(csv.table)).execute();
+            dslContext.execute("CREATE TABLE {0} AS SELECT * FROM {1}", DSL.name(csv.table), csvRead);
+        } else {
+            List<Name> columns = csv.header().stream().map(DSL::name).collect(Collectors.toList());
+            dslContext.execute("INSERT INTO {0} ({1}) SELECT * FROM {2}",
+                    DSL.name(csv.table), DSL.list(columns), csvRead);
+        }
+    }
+
     private ExtensionContext.Store getStore(ExtensionContext context) {
         return context.getStore(ExtensionContext.Namespace.create(getClass().getName(), getContextCatalog(context)));
     }
@@ -104,6 +174,7 @@ public final class WithSampleDataLoaded implements BeforeAllCallback, BeforeEach
     public static class SampleLoaderBuilder {
         private final Extension dslExtension;
         private final List<? extends UpdatableRecord<?>> records = new ArrayList<>();
+        private final List<CsvDataSet> csvDataSets = new ArrayList<>();
 
         SampleLoaderBuilder(Extension dslExtension) {
             this.dslExtension = dslExtension;
@@ -115,8 +186,81 @@ public final class WithSampleDataLoaded implements BeforeAllCallback, BeforeEach
             return this;
         }
 
+        /**
+         * Add the content of a table read from a CSV file by H2.
+         *
+         * @param dataset The CSV data set.
+         * @return The current builder
+         */
+        public SampleLoaderBuilder addDataset(CsvDataSet dataset) {
+            csvDataSets.add(dataset);
+            return this;
+        }
+
         public WithSampleDataLoaded build() {
-            return new WithSampleDataLoaded(dslExtension, records);
+            return new WithSampleDataLoaded(dslExtension, records, csvDataSets);
+        }
+    }
+
+    /**
+     * Reset of the standby database of a {@link SwitchableDataSource}, running in background during the tests.
+     */
+    private static final class Pipeline {
+        private final SwitchableDataSource dataSource;
+        private final Configuration standbyConfiguration;
+        private final List<? extends UpdatableRecord<?>> records;
+        private final List<CsvDataSet> csvDataSets;
+        private final ExecutorService executor;
+        private CompletableFuture<Void> standbyReady;
+
+        Pipeline(String catalog, SwitchableDataSource dataSource, DSLContext dslContext,
+                 List<? extends UpdatableRecord<?>> records, List<CsvDataSet> csvDataSets) {
+            try {
+                H2Scripts.restore(dataSource.standby(), catalog, H2Scripts.export(dataSource.active(), catalog));
+            } catch (SQLException e) {
+                throw new IllegalStateException("Unable to copy catalog " + catalog + " into the standby database", e);
+            }
+
+            this.dataSource = dataSource;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sample-reset-" + catalog);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            // The standby database is reset without the listeners, its statements are not part of the tests
+            this.standbyConfiguration = dslContext.configuration().derive(new ExecuteListenerProvider[0]);
+            // The records of the dataset may be read by the tests, the background thread only uses copies
+            this.records = records.stream()
+                    .map(r -> r.into(r.getTable()))
+                    .collect(Collectors.toList());
+            this.csvDataSets = csvDataSets;
+
+            this.standbyReady = CompletableFuture.runAsync(this::resetStandby, executor);
+        }
+
+        void swap() {
+            try {
+                standbyReady.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Unable to reset the sample data of the standby database", e.getCause());
+            }
+            dataSource.swap();
+            standbyReady = CompletableFuture.runAsync(this::resetStandby, executor);
+        }
+
+        void close() {
+            try {
+                standbyReady.join();
+            } catch (CompletionException ignore) {
+                // The failure was already reported by the tests
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        private void resetStandby() {
+            resetTables(DSL.using(standbyConfiguration.derive(dataSource.standby())), records, csvDataSets);
         }
     }
 
@@ -0,0 +1,260 @@
+package fr.irun.testy.jooq;
+
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped binary file holding the statements executed by a test class, in execution order.
+ * <p>
+ * Each distinct SQL is written once and referenced by its index by the executions, followed by the bind values.
+ * The bind values are written with their type among the usual JDBC types, the other values being written as string.
+ * </p>
+ */
+final class WorkloadFile implements CloseableResource, AutoCloseable {
+    private static final int MAGIC = 0x54574b31;
+    private static final byte TAG_SQL = 'S';
+    private static final byte TAG_EXECUTION = 'E';
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_LONG = 2;
+    private static final byte T_DOUBLE = 3;
+    private static final byte T_DECIMAL = 4;
+    private static final byte T_BOOLEAN = 5;
+    private static final byte T_DATE = 6;
+    private static final byte T_DATE_TIME = 7;
+    private static final byte T_TIME = 8;
+    private static final byte T_OFFSET_DATE_TIME = 9;
+    private static final byte T_UUID = 10;
+    private static final byte T_BYTES = 11;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final Map<String, Integer> sqlIndexes = new HashMap<>();
+    private int executions;
+
+    private WorkloadFile(Path file, DataOutputStream out) {
+        this.file = file;
+        this.out = out;
+    }
+
+    /**
+     * Create the file, replacing the previous workload.
+     *
+     * @param file The workload file.
+     * @return The opened file, ready to record executions.
+     */
+    static WorkloadFile create(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(file))));
+            out.writeInt(MAGIC);
+            return new WorkloadFile(file, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create workload file " + file, e);
+        }
+    }
+
+    /**
+     * Append an execution to the workload.
+     *
+     * @param sql        The executed SQL, with bind placeholders.
+     * @param bindValues The values bound to the placeholders.
+     */
+    synchronized void record(String sql, List<Object> bindValues) {
+        try {
+            Integer index = sqlIndexes.get(sql);
+            if (index == null) {
+                index = sqlIndexes.size();
+                sqlIndexes.put(sql, index);
+                out.writeByte(TAG_SQL);
+                writeString(out, sql);
+            }
+            out.writeByte(TAG_EXECUTION);
+            out.writeInt(index);
+            out.writeInt(bindValues.size());
+            for (Object value : bindValues) {
+                writeValue(out, value);
+            }
+            executions++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write workload file " + file, e);
+        }
+    }
+
+    /**
+     * @return The count of executions recorded.
+     */
+    synchronized int executions() {
+        return executions;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Read all the executions of a workload file.
+     *
+     * @param file The workload file.
+     * @return The executions, in recording order.
+     */
+    static List<Execution> read(Path file) {
+        List<String> sqls = new ArrayList<>();
+        List<Execution> executions = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a workload file: " + file);
+            }
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) {
+                    break;
+                } else if (tag == TAG_SQL) {
+                    sqls.add(readString(in));
+                } else if (tag == TAG_EXECUTION) {
+                    String sql = sqls.get(in.readInt());
+                    Object[] bindValues = new Object[in.readInt()];
+                    for (int i = 0; i < bindValues.length; i++) {
+                        bindValues[i] = readValue(in);
+                    }
+                    executions.add(new Execution(sql, bindValues));
+                } else {
+                    throw new IllegalArgumentException("Corrupted workload file " + file + ", unexpected tag " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Truncated workload file " + file, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read workload file " + file, e);
+        }
+        return executions;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(T_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(T_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Boolean) {
+            out.writeByte(T_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof LocalDate || value instanceof java.sql.Date) {
+            out.writeByte(T_DATE);
+            writeString(out, (value instanceof java.sql.Date) ? ((java.sql.Date) value).toLocalDate().toString() : value.toString());
+        } else if (value instanceof LocalDateTime || value instanceof Timestamp) {
+            out.writeByte(T_DATE_TIME);
+            writeString(out, (value instanceof Timestamp) ? ((Timestamp) value).toLocalDateTime().toString() : value.toString());
+        } else if (value instanceof LocalTime || value instanceof java.sql.Time) {
+            out.writeByte(T_TIME);
+            writeString(out, (value instanceof java.sql.Time) ? ((java.sql.Time) value).toLocalTime().toString() : value.toString());
+        } else if (value instanceof OffsetDateTime) {
+            out.writeByte(T_OFFSET_DATE_TIME);
+            writeString(out, value.toString());
+        } else if (value instanceof UUID) {
+            out.writeByte(T_UUID);
+            writeString(out, value.toString());
+        } else if (value instanceof byte[]) {
+            out.writeByte(T_BYTES);
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else {
+            out.writeByte(T_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return readString(in);
+            case T_LONG:
+                return in.readLong();
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_DECIMAL:
+                return new BigDecimal(readString(in));
+            case T_BOOLEAN:
+                return in.readBoolean();
+            case T_DATE:
+                return LocalDate.parse(readString(in));
+            case T_DATE_TIME:
+                return LocalDateTime.parse(readString(in));
+            case T_TIME:
+                return LocalTime.parse(readString(in));
+            case T_OFFSET_DATE_TIME:
+                return OffsetDateTime.parse(readString(in));
+            case T_UUID:
+                return UUID.fromString(readString(in));
+            case T_BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            default:
+                throw new IOException("Unknown bind value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A statement of the workload with its bind values.
+     */
+    static final class Execution {
+        final String sql;
+        final Object[] bindValues;
+
+        Execution(String sql, Object[] bindValues) {
+            this.sql = sql;
+            this.bindValues = bindValues;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package fr.irun.testy.jooq;
+
+import org.jooq.ExecuteContext;
+import org.jooq.Query;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * jOOQ listener writing the statements executed by the tests into a {@link WorkloadFile}.
+ * <p>
+ * Only the statements executed while a test method runs are recorded, the {@code BeforeEach} callbacks and methods,
+ * as the sample data loading, are left out. The batches of distinct statements are recorded statement by statement.
+ * The batches of a single statement with many bind sets are skipped because jOOQ does not expose their bind values.
+ * </p>
+ */
+final class WorkloadRecorder extends DefaultExecuteListener {
+    private final transient WorkloadFile workload;
+    private transient volatile boolean recording = false;
+
+    WorkloadRecorder(WorkloadFile workload) {
+        this.workload = workload;
+    }
+
+    void start() {
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        if (!recording) {
+            return;
+        }
+
+        Query query = ctx.query();
+        if (ctx.sql() != null && query != null) {
+            List<Object> bindValues = (ctx.statement() instanceof PreparedStatement)
+                    ? query.getBindValues()
+                    : Collections.emptyList();
+            workload.record(ctx.sql(), bindValues);
+
+        } else if (ctx.batchSQL().length > 0) {
+            for (String sql : ctx.batchSQL()) {
+                if (sql != null && sql.indexOf('?') < 0) {
+                    workload.record(sql, Collections.emptyList());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.WorkloadFile.Execution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replay the workloads recorded by {@link WithDslContext} to measure the throughput and the latencies of the database.
+ * <p>
+ * Each connection replays all the statements of the workloads, in recording order, for the given count of iterations.
+ * The warmup iterations are executed before the measure, with the same concurrency.
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_sustain_jedi_workload(DataSource dataSource) {
+ *         WorkloadReport report = WorkloadReplay.builder()
+ *                 .addWorkload(Paths.get("target/workloads/fr.irun.JediRepositoryTest.workload.gz"))
+ *                 .setConcurrency(8)
+ *                 .setIterations(100)
+ *                 .build()
+ *                 .replay(dataSource);
+ *
+ *         assertThat(report.p99()).isLessThan(Duration.ofMillis(5));
+ *     }
+ * </code></pre>
+ * <p>
+ * The workload is replayed as recorded, the statements which depend on data created by the recorded tests may fail.
+ * The failed statements are counted in {@link WorkloadReport#errors()} and do not stop the replay.
+ * </p>
+ */
+public final class WorkloadReplay {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadReplay.class);
+
+    private final List<Execution> workload;
+    private final int concurrency;
+    private final int iterations;
+    private final int warmupIterations;
+
+    private WorkloadReplay(List<Execution> workload, int concurrency, int iterations, int warmupIterations) {
+        this.workload = workload;
+        this.concurrency = concurrency;
+        this.iterations = iterations;
+        this.warmupIterations = warmupIterations;
+    }
+
+    /**
+     * @return The count of statements replayed by a connection for an iteration.
+     */
+    public int size() {
+        return workload.size();
+    }
+
+    /**
+     * Replay the workload on the DataSource.
+     *
+     * @param dataSource The DataSource of the database to measure.
+     * @return The throughput and the latencies of the measured iterations.
+     */
+    public WorkloadReport replay(DataSource dataSource) {
+        if (warmupIterations > 0) {
+            run(dataSource, warmupIterations);
+        }
+        WorkloadReport report = run(dataSource, iterations);
+        LOGGER.info("Workload replayed: {}", report);
+        return report;
+    }
+
+    private WorkloadReport run(DataSource dataSource, int iterationCount) {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "workload-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CountDownLatch ready = new CountDownLatch(concurrency);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicLong errors = new AtomicLong();
+            List<Future<long[]>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> replay(dataSource, iterationCount, ready, start, errors)));
+            }
+
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            List<long[]> latencies = new ArrayList<>(concurrency);
+            for (Future<long[]> worker : workers) {
+                latencies.add(worker.get());
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+            long[] all = new long[latencies.stream().mapToInt(l -> l.length).sum()];
+            int offset = 0;
+            for (long[] l : latencies) {
+                System.arraycopy(l, 0, all, offset, l.length);
+                offset += l.length;
+            }
+            return new WorkloadReport(concurrency, all, errors.get(), elapsed);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Workload replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Workload replay failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] replay(DataSource dataSource, int iterationCount,
+                          CountDownLatch ready, CountDownLatch start, AtomicLong errors) throws Exception {
+        long[] latencies = new long[workload.size() * iterationCount];
+        Map<String, PreparedStatement> statements = new HashMap<>();
+        try (Connection conn = connect(dataSource, ready)) {
+            start.await();
+            int i = 0;
+            for (int iteration = 0; iteration < iterationCount; iteration++) {
+                for (Execution execution : workload) {
+                    long begin = System.nanoTime();
+                    try {
+                        execute(conn, statements, execution);
+                    } catch (SQLException e) {
+                        errors.incrementAndGet();
+                        LOGGER.debug("Replayed statement failed: {}", e.getMessage());
+                    }
+                    latencies[i++] = System.nanoTime() - begin;
+                }
+            }
+        } finally {
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+        return latencies;
+    }
+
+    private static Connection connect(DataSource dataSource, CountDownLatch ready) throws SQLException {
+        try {
+            return dataSource.getConnection();
+        } finally {
+            // Even on failure, for the replay to report the failure of the worker instead of waiting for it
+            ready.countDown();
+        }
+    }
+
+    private static void execute(Connection conn, Map<String, PreparedStatement> statements, Execution execution)
+            throws SQLException {
+        PreparedStatement statement = statements.get(execution.sql);
+        if (statement == null) {
+            statement = conn.prepareStatement(execution.sql);
+            statements.put(execution.sql, statement);
+        }
+        for (int i = 0; i < execution.bindValues.length; i++) {
+            statement.setObject(i + 1, execution.bindValues[i]);
+        }
+        if (statement.execute()) {
+            try (ResultSet rs = statement.getResultSet()) {
+                while (rs.next()) {
+                    // Read all the rows, as the recorded test did
+                }
+            }
+        }
+    }
+
+    public static WorkloadReplayBuilder builder() {
+        return new WorkloadReplayBuilder();
+    }
+
+    public static class WorkloadReplayBuilder {
+        private final List<Path> workloads = new ArrayList<>();
+        private int concurrency = Runtime.getRuntime().availableProcessors();
+        private int iterations = 1;
+        private int warmupIterations = 0;
+
+        /**
+         * Add a workload file. The workloads are replayed in the order of addition.
+         *
+         * @param workload A workload file recorded by {@link WithDslContext}.
+         * @return The current builder
+         */
+        public WorkloadReplayBuilder addWorkload(Path workload) {
+            this.workloads.add(workload);
+            return this;
+        }
+
+        /**
+         * <p>Set the count of connections replaying the workload concurrently.</p>
+         * <p>By default, one connection by available processor.</p>
+         *
+         * @param concurrency The count of concurrent connections.
+         * @return The current builder
+         */
+        public WorkloadReplayBuilder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param iterations The count of measured replays of the workload by each connection.
+         * @return The current builder
+         */
+        public WorkloadReplayBuilder setIterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * @param warmupIterations The count of replays of the workload by each connection before the measure.
+         * @return The current builder
+         */
+        public WorkloadReplayBuilder setWarmupIterations(int warmupIterations) {
+            this.warmupIterations = warmupIterations;
+            return this;
+        }
+
+        public WorkloadReplay build() {
+            if (workloads.isEmpty()) {
+                throw new IllegalArgumentException("At least one workload is mandatory !");
+            }
+            if (concurrency < 1 || iterations < 1 || warmupIterations < 0) {
+                throw new IllegalArgumentException("Concurrency and iterations must be positive !");
+            }
+            List<Execution> workload = new ArrayList<>();
+            workloads.stream()
+                    .map(Objects::requireNonNull)
+                    .map(WorkloadFile::read)
+                    .forEach(workload::addAll);
+            return new WorkloadReplay(workload, concurrency, iterations, warmupIterations);
+        }
+    }
+}
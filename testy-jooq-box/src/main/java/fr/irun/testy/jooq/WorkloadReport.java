@@ -0,0 +1,104 @@
+package fr.irun.testy.jooq;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Throughput and latencies measured by a {@link WorkloadReplay}.
+ * <p>
+ * The latencies are measured for each statement, from its execution to the end of the reading of its results. The
+ * statements in error are counted in the executions and in the latencies.
+ * </p>
+ */
+public final class WorkloadReport {
+    private final int concurrency;
+    private final long[] sortedLatencies;
+    private final long errors;
+    private final Duration elapsed;
+
+    WorkloadReport(int concurrency, long[] latencies, long errors, Duration elapsed) {
+        this.concurrency = concurrency;
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(this.sortedLatencies);
+        this.errors = errors;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return The count of connections replaying the workload concurrently.
+     */
+    public int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return The count of statements executed during the measure.
+     */
+    public long executions() {
+        return sortedLatencies.length;
+    }
+
+    /**
+     * @return The count of statements which failed.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * @return The wall time of the measure.
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return The count of statements executed by second.
+     */
+    public double throughput() {
+        long nanos = elapsed.toNanos();
+        return (nanos == 0) ? 0 : sortedLatencies.length * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * Compute a percentile of the latencies with the nearest rank method.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency under which the given percentage of the statements executed.
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (sortedLatencies.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return Duration.ofNanos(sortedLatencies[Math.max(rank, 1) - 1]);
+    }
+
+    public Duration p50() {
+        return percentile(50);
+    }
+
+    public Duration p90() {
+        return percentile(90);
+    }
+
+    public Duration p99() {
+        return percentile(99);
+    }
+
+    public Duration max() {
+        return percentile(100);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d statements on %d connections in %d ms (%d errors): %.1f stmt/s, p50=%dµs p90=%dµs p99=%dµs max=%dµs",
+                executions(), concurrency, elapsed.toMillis(), errors, throughput(),
+                p50().toNanos() / 1_000, p90().toNanos() / 1_000, p99().toNanos() / 1_000, max().toNanos() / 1_000);
+    }
+}
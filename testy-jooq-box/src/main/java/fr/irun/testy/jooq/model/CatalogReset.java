@@ -0,0 +1,20 @@
+package fr.irun.testy.jooq.model;
+
+/**
+ * Reset applied on a pooled catalog when a test class returns it to the pool.
+ */
+public enum CatalogReset {
+
+    /**
+     * All the tables are truncated and their identities restarted, except the Flyway schema history. The data
+     * inserted by the migrations are lost, so only the test classes which do not read them can use it.
+     */
+    TRUNCATE,
+
+    /**
+     * All the objects are dropped and the catalog is restored from the script of the migrated template. Slower
+     * than {@link #TRUNCATE} but restores the sequences and the data inserted by the migrations. This is the
+     * default.
+     */
+    RESTORE_TEMPLATE
+}
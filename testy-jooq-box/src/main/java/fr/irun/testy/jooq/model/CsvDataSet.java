@@ -0,0 +1,120 @@
+package fr.irun.testy.jooq.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Test data of a table read from a CSV file by H2 {@code CSVREAD}, without building jOOQ records.
+ * <p>
+ * The first line of the file holds the names of the columns, separated by commas. The empty values are inserted
+ * as {@code NULL} and the values are converted by H2 to the type of the columns.
+ * </p>
+ * <pre><code>
+ * CsvDataSet jedi = CsvDataSet.fromClasspath("JEDI", "fixtures/jedi.csv");
+ * CsvDataSet snapshot = CsvDataSet.fromFile("SNAPSHOT", Paths.get("target/snapshot.csv")).asNewTable();
+ * </code></pre>
+ */
+public final class CsvDataSet {
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    /**
+     * Name of the filled table.
+     */
+    public final String table;
+
+    /**
+     * Location of the CSV file as understood by H2, {@code classpath:} prefixed for the classpath resources.
+     */
+    public final String location;
+
+    /**
+     * When {@code true}, the table is dropped and created from the CSV file, all the columns being VARCHAR.
+     */
+    public final boolean isNewTable;
+
+    private CsvDataSet(String table, String location, boolean isNewTable) {
+        this.table = Objects.requireNonNull(table);
+        this.location = Objects.requireNonNull(location);
+        this.isNewTable = isNewTable;
+    }
+
+    /**
+     * Read the data of an existing table from a classpath resource.
+     *
+     * @param table    The name of the table.
+     * @param resource The path of the CSV file in the classpath.
+     * @return The data set.
+     */
+    public static CsvDataSet fromClasspath(String table, String resource) {
+        String path = resource.startsWith("/") ? resource.substring(1) : resource;
+        return new CsvDataSet(table, CLASSPATH_PREFIX + path, false);
+    }
+
+    /**
+     * Read the data of an existing table from a file.
+     *
+     * @param table The name of the table.
+     * @param file  The CSV file.
+     * @return The data set.
+     */
+    public static CsvDataSet fromFile(String table, Path file) {
+        return new CsvDataSet(table, file.toAbsolutePath().toString(), false);
+    }
+
+    /**
+     * Create the table from the CSV file instead of filling an existing table.
+     *
+     * @return A data set creating its table.
+     */
+    public CsvDataSet asNewTable() {
+        return new CsvDataSet(table, location, true);
+    }
+
+    /**
+     * Read the names of the columns from the first line of the file.
+     *
+     * @return The names of the columns, in the order of the file.
+     */
+    public List<String> header() {
+        try (InputStream in = open();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return Collections.emptyList();
+            }
+            if (line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            return Arrays.stream(line.split(","))
+                    .map(String::trim)
+                    .map(column -> column.replaceAll("^\"|\"$", ""))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read CSV header from " + location, e);
+        }
+    }
+
+    private InputStream open() throws IOException {
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            String resource = location.substring(CLASSPATH_PREFIX.length());
+            InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resource);
+            if (in == null) {
+                throw new IOException("CSV resource not found: " + resource);
+            }
+            return in;
+        }
+        return Files.newInputStream(Paths.get(location));
+    }
+}
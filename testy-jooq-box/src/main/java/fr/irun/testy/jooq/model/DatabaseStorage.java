@@ -0,0 +1,31 @@
+package fr.irun.testy.jooq.model;
+
+/**
+ * Storage of the H2 database.
+ */
+public enum DatabaseStorage {
+
+    /**
+     * All the data are stored on the JVM heap.
+     */
+    MEMORY("mem:", false),
+
+    /**
+     * The data are stored in a temporary file, read through memory-mapped buffers. The data then lives in the
+     * operating system page cache instead of the JVM heap.
+     */
+    NIO_MAPPED("nioMapped:", true),
+
+    /**
+     * Same as {@link #NIO_MAPPED}, the file being split in chunks to avoid the 2 GB limit of a single mapping.
+     */
+    SPLIT_NIO_MAPPED("split:nioMapped:", true);
+
+    public final String urlPrefix;
+    public final boolean isFileBased;
+
+    DatabaseStorage(String urlPrefix, boolean isFileBased) {
+        this.urlPrefix = urlPrefix;
+        this.isFileBased = isFileBased;
+    }
+}
@@ -0,0 +1,28 @@
+package fr.irun.testy.jooq.model;
+
+/**
+ * Action run on the H2 database after all the tests of a class.
+ */
+public enum DatabaseTeardown {
+
+    /**
+     * The database is kept alive until the end of the JVM.
+     */
+    NONE(null),
+
+    /**
+     * All the tables, sequences and schemas are dropped, the database itself stays open.
+     */
+    DROP_ALL_OBJECTS("DROP ALL OBJECTS"),
+
+    /**
+     * The database is closed and its memory released. A new connection opens a new empty database.
+     */
+    SHUTDOWN("SHUTDOWN");
+
+    public final String statement;
+
+    DatabaseTeardown(String statement) {
+        this.statement = statement;
+    }
+}
@@ -0,0 +1,23 @@
+package fr.irun.testy.jooq.model;
+
+/**
+ * How the migration scripts of a catalog are applied.
+ */
+public enum MigrationMode {
+
+    /**
+     * The scripts are applied by Flyway, which fills its schema history table.
+     */
+    FLYWAY,
+
+    /**
+     * The versioned SQL scripts are concatenated and run at once with H2 {@code RUNSCRIPT}. Only for plain
+     * forward-only SQL scripts: the Java migrations, the repeatable migrations and the callbacks are ignored.
+     */
+    RUNSCRIPT,
+
+    /**
+     * Same as {@link #RUNSCRIPT}, the Flyway schema history table being filled as Flyway would do.
+     */
+    RUNSCRIPT_WITH_HISTORY
+}
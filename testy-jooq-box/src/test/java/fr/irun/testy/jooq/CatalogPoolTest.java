@@ -0,0 +1,93 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.model.CatalogReset;
+import org.flywaydb.core.api.Location;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogPoolTest {
+    private CatalogPool tested;
+
+    @BeforeEach
+    void setUp() {
+        tested = new CatalogPool("dummy", new Location("classpath:db/migration/dummy"), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tested.close();
+    }
+
+    @Test
+    void should_lease_migrated_catalogs() throws Exception {
+        JdbcDataSource first = tested.lease();
+        JdbcDataSource second = tested.lease();
+
+        assertThat(first.getURL()).isNotEqualTo(second.getURL());
+        assertThat(countJedi(first)).isEqualTo(2);
+        assertThat(countJedi(second)).isEqualTo(2);
+    }
+
+    @Test
+    void should_truncate_returned_catalog() throws Exception {
+        JdbcDataSource dataSource = tested.lease();
+        tested.release(dataSource, CatalogReset.TRUNCATE);
+
+        JdbcDataSource leased = tested.lease();
+        if (leased != dataSource) {
+            leased = tested.lease();
+        }
+        assertThat(countJedi(leased)).isZero();
+    }
+
+    @Test
+    void should_restore_returned_catalog_from_template() throws Exception {
+        JdbcDataSource dataSource = tested.lease();
+        execute(dataSource, "INSERT INTO JEDI VALUES ('Luke', 'Skywalker', 'LIGHT')");
+        tested.release(dataSource, CatalogReset.RESTORE_TEMPLATE);
+
+        JdbcDataSource leased = tested.lease();
+        if (leased != dataSource) {
+            leased = tested.lease();
+        }
+        assertThat(countJedi(leased)).isEqualTo(2);
+    }
+
+    @Test
+    void should_not_shutdown_catalogs_of_another_pool() throws Exception {
+        CatalogPool other = new CatalogPool("dummy", new Location("classpath:db/migration/dummy"), 2);
+        JdbcDataSource leased = tested.lease();
+        JdbcDataSource otherLeased = other.lease();
+        assertThat(otherLeased.getURL()).isNotEqualTo(leased.getURL());
+
+        other.close();
+
+        assertThat(countJedi(leased)).isEqualTo(2);
+    }
+
+    private static int countJedi(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM JEDI")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
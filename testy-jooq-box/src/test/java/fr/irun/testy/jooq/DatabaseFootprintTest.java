@@ -0,0 +1,35 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseFootprintTest {
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .reportFootprint(true)
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .register();
+
+    @Test
+    void should_measure_catalog(DataSource dataSource) throws SQLException {
+        DatabaseFootprint tested = DatabaseFootprint.measure(dataSource, "dummy");
+
+        assertThat(tested.tables).isPositive();
+        assertThat(tested.rows).isPositive();
+        assertThat(tested.pages).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,48 @@
+package fr.irun.testy.jooq;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPlanBaselineTest {
+    private static final String SQL = "select * from JEDI where LAST_NAME = ?";
+
+    @Test
+    void should_detect_index_replaced_by_table_scan(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("plans.tsv");
+        QueryPlanBaseline tested = new QueryPlanBaseline(file);
+
+        List<String> first = tested.check(ImmutableList.of(plan("IDX_LAST_NAME")));
+        assertThat(first).isEmpty();
+        assertThat(Files.readAllLines(file)).contains("dummy.JEDI=IDX_LAST_NAME\t" + SQL);
+
+        List<String> actual = tested.check(ImmutableList.of(plan(QueryPlan.TABLE_SCAN)));
+        assertThat(actual).hasSize(1);
+        assertThat(actual.get(0)).contains("IDX_LAST_NAME replaced by tableScan");
+        assertThat(Files.readAllLines(file)).contains("dummy.JEDI=IDX_LAST_NAME\t" + SQL);
+    }
+
+    @Test
+    void should_accept_table_scan_replaced_by_index(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("plans.tsv");
+        QueryPlanBaseline tested = new QueryPlanBaseline(file);
+        tested.check(ImmutableList.of(plan(QueryPlan.TABLE_SCAN)));
+
+        List<String> actual = tested.check(ImmutableList.of(plan("IDX_LAST_NAME")));
+
+        assertThat(actual).isEmpty();
+        assertThat(Files.readAllLines(file)).contains("dummy.JEDI=IDX_LAST_NAME\t" + SQL);
+    }
+
+    private static QueryPlan plan(String access) {
+        return new QueryPlan(SQL, ImmutableMap.of("dummy.JEDI", access), ImmutableMap.of("dummy.JEDI", 3L));
+    }
+}
@@ -0,0 +1,67 @@
+package fr.irun.testy.jooq;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class QueryPlanTest {
+    private static final String SQL = "select * from JEDI j join MASTER m on m.JEDI_ID = j.ID where j.ID = ?";
+    private static final String EXPLAIN = "SELECT\n" +
+            "    \"j\".\"ID\",\n" +
+            "    \"m\".\"JEDI_ID\"\n" +
+            "FROM \"dummy\".\"MASTER\" \"m\"\n" +
+            "    /* dummy.MASTER.tableScan */\n" +
+            "    /* scanCount: 3 */\n" +
+            "INNER JOIN \"dummy\".\"JEDI\" \"j\"\n" +
+            "    /* dummy.PRIMARY_KEY_2: ID = 1\n" +
+            "        AND ID = m.JEDI_ID\n" +
+            "     */\n" +
+            "    ON 1=1\n" +
+            "    /* scanCount: 3 */\n" +
+            "WHERE (\"j\".\"ID\" = 1)\n" +
+            "    AND (\"m\".\"JEDI_ID\" = \"j\".\"ID\")";
+
+    @Test
+    void should_parse_explain_analyze() {
+        QueryPlan tested = QueryPlan.parse(SQL, EXPLAIN);
+
+        assertThat(tested.sql).isEqualTo(SQL);
+        assertThat(tested.accesses).containsExactly(
+                entry("dummy.JEDI \"j\"", "PRIMARY_KEY_2"),
+                entry("dummy.MASTER \"m\"", QueryPlan.TABLE_SCAN));
+        assertThat(tested.scanCounts).containsExactly(
+                entry("dummy.JEDI \"j\"", 3L),
+                entry("dummy.MASTER \"m\"", 3L));
+        assertThat(tested.summary()).isEqualTo("dummy.JEDI \"j\"=PRIMARY_KEY_2,dummy.MASTER \"m\"=tableScan");
+    }
+
+    @Test
+    void should_report_full_scans_above_threshold() {
+        QueryPlan tested = QueryPlan.parse(SQL, EXPLAIN);
+
+        assertThat(tested.fullScansAbove(2)).containsExactly(entry("dummy.MASTER \"m\"", 3L));
+        assertThat(tested.fullScansAbove(3)).isEmpty();
+    }
+
+    @Test
+    void should_keep_each_read_of_a_table() {
+        QueryPlan tested = QueryPlan.parse(SQL, "(SELECT\n" +
+                "    \"FIRST_NAME\"\n" +
+                "FROM \"dummy\".\"JEDI\"\n" +
+                "    /* dummy.PRIMARY_KEY_2: LAST_NAME = 'Kenobi' */\n" +
+                "    /* scanCount: 2 */\n" +
+                "WHERE \"LAST_NAME\" = 'Kenobi')\n" +
+                "UNION ALL\n" +
+                "(SELECT\n" +
+                "    \"FIRST_NAME\"\n" +
+                "FROM \"dummy\".\"JEDI\"\n" +
+                "    /* dummy.JEDI.tableScan */\n" +
+                "    /* scanCount: 3 */)");
+
+        assertThat(tested.accesses).containsExactly(
+                entry("dummy.JEDI", "PRIMARY_KEY_2"),
+                entry("dummy.JEDI#2", QueryPlan.TABLE_SCAN));
+        assertThat(tested.fullScansAbove(2)).containsExactly(entry("dummy.JEDI#2", 3L));
+    }
+}
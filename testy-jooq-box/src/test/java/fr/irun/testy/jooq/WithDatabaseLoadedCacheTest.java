@@ -0,0 +1,59 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.model.DatabaseTraceLevel;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithDatabaseLoadedCacheTest {
+    private static final String CATALOG = "dummy";
+    private static final Location LOCATION = new Location("classpath:db/migration/" + CATALOG);
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog(CATALOG)
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .cacheMigrations(true)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .register();
+
+    @Test
+    void should_migrate_with_cached_migrations(DSLContext dsl) {
+        assertThat(MigrationCache.isCached(LOCATION)).isTrue();
+        assertThat(dsl.fetchCount(DSL.table(DSL.name("JEDI")))).isEqualTo(2);
+        assertThat(dsl.fetchValue("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"type\" = 'SQL'")).isEqualTo(1L);
+    }
+
+    @Test
+    void should_reuse_cached_migrations_on_other_database() {
+        JdbcDataSource other = new JdbcDataSource();
+        other.setURL(WithInMemoryDatasource.databaseUrl("mem:cache_other", CATALOG, DatabaseTraceLevel.OFF, true));
+
+        MigrationCache.cleanAndMigrate(Flyway.configure()
+                .dataSource(other)
+                .schemas(CATALOG)
+                .placeholderReplacement(false)
+                .locations(LOCATION), LOCATION);
+
+        DSLContext dsl = DSL.using(other, SQLDialect.H2);
+        assertThat(dsl.fetchCount(DSL.table(DSL.name("JEDI")))).isEqualTo(2);
+    }
+}
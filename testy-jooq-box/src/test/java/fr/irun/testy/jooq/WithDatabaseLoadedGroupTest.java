@@ -0,0 +1,49 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.inject.Named;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithDatabaseLoadedGroupTest {
+    private static final String NORA_CATALOG = "dummy_nora";
+    private static final String LEGACY_CATALOG = "dummy_legacy";
+
+    private static final WithInMemoryDatasource wLegacyDatasource = WithInMemoryDatasource.builder()
+            .setCatalog(LEGACY_CATALOG)
+            .setReferentialIntegrity(false)
+            .build();
+    private static final WithInMemoryDatasource wNoraDatasource = WithInMemoryDatasource.builder()
+            .setCatalog(NORA_CATALOG)
+            .build();
+    private static final WithDatabaseLoadedGroup wDatabases = WithDatabaseLoaded.concurrently(
+            WithDatabaseLoaded.builder().setDatasourceExtension(wLegacyDatasource).build(),
+            WithDatabaseLoaded.builder().setDatasourceExtension(wNoraDatasource).build());
+    private static final WithDslContext wLegacyContext = WithDslContext.builder()
+            .setDatasourceExtension(wLegacyDatasource)
+            .build();
+    private static final WithDslContext wNoraContext = WithDslContext.builder()
+            .setDatasourceExtension(wNoraDatasource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension
+            .outer(wLegacyDatasource)
+            .append(wNoraDatasource)
+            .append(wDatabases)
+            .append(wLegacyContext)
+            .append(wNoraContext)
+            .register();
+
+    @Test
+    void should_migrate_all_catalogs(@Named(LEGACY_CATALOG) DSLContext legacyContext,
+                                     @Named(NORA_CATALOG) DSLContext noraContext) {
+        assertThat(legacyContext.fetch("SELECT FIRST_NAME, LAST_NAME FROM GUNGAN")).hasSize(1);
+        assertThat(noraContext.fetch("SELECT FIRST_NAME, LAST_NAME FROM MASTER")).hasSize(1);
+    }
+}
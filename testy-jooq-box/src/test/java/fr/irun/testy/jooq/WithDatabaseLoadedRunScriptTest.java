@@ -0,0 +1,62 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.model.DatabaseTraceLevel;
+import fr.irun.testy.jooq.model.MigrationMode;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithDatabaseLoadedRunScriptTest {
+    private static final String CATALOG = "dummy";
+    private static final String SQL_SELECT_HISTORY =
+            "SELECT \"version\", \"description\", \"script\", \"checksum\" FROM \"flyway_schema_history\" WHERE \"type\" = 'SQL'";
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog(CATALOG)
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .setMigrationMode(MigrationMode.RUNSCRIPT_WITH_HISTORY)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .register();
+
+    @Test
+    void should_run_scripts_natively(DSLContext dsl) {
+        assertThat(dsl.fetchCount(DSL.table(DSL.name("JEDI")))).isEqualTo(2);
+    }
+
+    @Test
+    void should_write_history_as_flyway(DSLContext dsl) {
+        JdbcDataSource flywayDataSource = new JdbcDataSource();
+        flywayDataSource.setURL(WithInMemoryDatasource.databaseUrl("mem:runscript_flyway", CATALOG, DatabaseTraceLevel.OFF, true));
+        Flyway.configure()
+                .dataSource(flywayDataSource)
+                .schemas(CATALOG)
+                .placeholderReplacement(false)
+                .locations("classpath:db/migration/" + CATALOG)
+                .load()
+                .migrate();
+        Record expected = DSL.using(flywayDataSource, SQLDialect.H2).fetchOne(SQL_SELECT_HISTORY);
+
+        Record actual = dsl.fetchOne(SQL_SELECT_HISTORY);
+
+        assertThat(actual.intoList()).isEqualTo(expected.intoList());
+    }
+}
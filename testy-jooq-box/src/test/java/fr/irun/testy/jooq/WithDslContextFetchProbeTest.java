@@ -0,0 +1,120 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.stream.Stream;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WithDslContextFetchProbeTest {
+    private static final int GENERATED = 20_000;
+    private static final int TOTAL = GENERATED + 2;
+    private static final int RETAINED_BYTES = 64 * 1024 * 1024;
+    private static final String GARBAGE_AT_START = "garbageAtStart";
+
+    @SuppressWarnings("unused")
+    private static volatile byte[] garbage;
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithGeneratedData wLargeTable = WithGeneratedData.builder()
+            .setDatasourceExtension(wDataSource)
+            .setTable("JEDI")
+            .setRowCount(GENERATED)
+            .addColumn("FIRST_NAME", "'Clone'")
+            .addColumn("LAST_NAME", "CONCAT('CT-', X)")
+            .addColumn("FORCE_SIDE", "'LIGHT'")
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .probeFetches(true)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wLargeTable)
+            .append(wDslContext)
+            .register();
+
+    @Test
+    void should_detect_materialized_result(DSLContext dsl, FetchStats fetches) {
+        assertThat(dsl.selectFrom(JEDI).fetch()).hasSize(TOTAL);
+
+        assertThat(fetches.rowsFetched()).isEqualTo(TOTAL);
+        assertThat(fetches.rowsMaterialized()).isEqualTo(TOTAL);
+        assertThat(fetches.heapGrowth()).isNotNegative();
+        assertThatThrownBy(fetches::assertStreamed)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining(TOTAL + " rows materialized");
+    }
+
+    @Test
+    void should_accept_cursor_with_fetch_size(DSLContext dsl, FetchStats fetches) {
+        long count = 0;
+        try (Cursor<?> cursor = dsl.selectFrom(JEDI).fetchSize(500).fetchLazy()) {
+            for (Object ignored : cursor) {
+                count++;
+            }
+        }
+
+        assertThat(count).isEqualTo(TOTAL);
+        assertThat(fetches.rowsStreamed()).isEqualTo(TOTAL);
+        fetches.assertStreamed();
+    }
+
+    @Test
+    void should_detect_stream_without_fetch_size(DSLContext dsl, FetchStats fetches) {
+        try (Stream<?> stream = dsl.selectFrom(JEDI).fetchStream()) {
+            assertThat(stream.count()).isEqualTo(TOTAL);
+        }
+
+        assertThat(fetches.rowsMaterialized()).isZero();
+        assertThatThrownBy(fetches::assertStreamed)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("default fetch size");
+    }
+
+    @Test
+    void should_accept_small_results(DSLContext dsl, FetchStats fetches) {
+        dsl.selectFrom(JEDI).where(JEDI.LAST_NAME.in("Kenobi", "Vador")).fetch();
+
+        fetches.assertStreamed();
+        assertThat(fetches.rowsMaterialized()).isEqualTo(2);
+    }
+
+    @BeforeEach
+    void setUp(TestInfo testInfo) {
+        if (testInfo.getTags().contains(GARBAGE_AT_START)) {
+            garbage = new byte[2 * RETAINED_BYTES];
+            garbage = null;
+        }
+    }
+
+    @Test
+    @Tag(GARBAGE_AT_START)
+    void should_detect_retained_heap(FetchStats fetches) {
+        byte[] retained = new byte[RETAINED_BYTES];
+        System.gc();
+
+        assertThat(fetches.heapGrowth()).isGreaterThanOrEqualTo(RETAINED_BYTES);
+        assertThatThrownBy(() -> fetches.assertMaxHeapGrowth(RETAINED_BYTES / 2))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("Expected a heap growth of at most " + RETAINED_BYTES / 2 + " bytes");
+        assertThat(retained).hasSize(RETAINED_BYTES);
+    }
+}
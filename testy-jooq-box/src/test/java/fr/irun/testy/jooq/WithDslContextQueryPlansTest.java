@@ -0,0 +1,111 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drive a {@link WithDslContext} capturing the query plans through its lifecycle, on the real output of H2, to check
+ * the failures it raises at the end of a test or of a test class.
+ */
+@ExtendWith(ExtensionContextResolver.class)
+class WithDslContextQueryPlansTest {
+    private static final Table<?> JEDI = DSL.table(DSL.name("JEDI"));
+    private static final Field<String> FIRST_NAME = DSL.field(DSL.name("FIRST_NAME"), String.class);
+    private static final Field<String> LAST_NAME = DSL.field(DSL.name("LAST_NAME"), String.class);
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .register();
+
+    @Test
+    void should_fail_on_full_scan_of_jedi(ExtensionContext context) {
+        WithDslContext tested = WithDslContext.builder()
+                .setDatasourceExtension(wDataSource)
+                .captureQueryPlans(true)
+                .setFullScanThreshold(1)
+                .build();
+        tested.beforeAll(context);
+        tested.beforeEach(context);
+
+        tested.getDslContext(context).selectFrom(JEDI).where(FIRST_NAME.eq("Obiwan")).fetch();
+
+        assertThatThrownBy(() -> tested.afterEach(context))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("Full table scans above 1 rows:")
+                .hasMessageContaining("dummy.JEDI: 3 rows scanned");
+    }
+
+    @Test
+    void should_report_each_side_of_a_self_join(ExtensionContext context) {
+        WithDslContext tested = WithDslContext.builder()
+                .setDatasourceExtension(wDataSource)
+                .captureQueryPlans(true)
+                .setFullScanThreshold(1)
+                .build();
+        tested.beforeAll(context);
+        tested.beforeEach(context);
+
+        tested.getDslContext(context).select(DSL.field(DSL.name("MASTER", "FIRST_NAME")))
+                .from(JEDI.as("MASTER"))
+                .join(JEDI.as("PADAWAN"))
+                .on(DSL.field(DSL.name("PADAWAN", "FIRST_NAME")).eq(DSL.field(DSL.name("MASTER", "LAST_NAME"))))
+                .fetch();
+
+        assertThatThrownBy(() -> tested.afterEach(context))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("dummy.JEDI \"MASTER\"")
+                .hasMessageContaining("dummy.JEDI \"PADAWAN\"");
+    }
+
+    @Test
+    void should_fail_class_when_index_is_lost(ExtensionContext context, @TempDir Path tempDir) {
+        Path baseline = tempDir.resolve("query-plans.tsv");
+        DSLContext dsl = DSL.using(wDataSource.getDataSource(context), org.jooq.SQLDialect.H2);
+        dsl.execute("CREATE INDEX IDX_JEDI_LAST_NAME ON JEDI(LAST_NAME)");
+        try {
+            WithDslContext first = runLastNameQuery(context, baseline);
+            assertThatCode(() -> first.afterAll(context)).doesNotThrowAnyException();
+        } finally {
+            dsl.execute("DROP INDEX IDX_JEDI_LAST_NAME");
+        }
+
+        WithDslContext second = runLastNameQuery(context, baseline);
+        assertThatThrownBy(() -> second.afterAll(context))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("IDX_JEDI_LAST_NAME replaced by tableScan");
+    }
+
+    private static WithDslContext runLastNameQuery(ExtensionContext context, Path baseline) {
+        WithDslContext tested = WithDslContext.builder()
+                .setDatasourceExtension(wDataSource)
+                .setQueryPlanBaseline(baseline)
+                .build();
+        tested.beforeAll(context);
+        tested.beforeEach(context);
+        tested.getDslContext(context).selectFrom(JEDI).where(LAST_NAME.eq("Kenobi")).fetch();
+        tested.afterEach(context);
+        return tested;
+    }
+}
@@ -0,0 +1,107 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteType;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WithDslContextQueryStatsTest {
+    private static final Table<?> JEDI = DSL.table(DSL.name("JEDI"));
+    private static final Field<String> FIRST_NAME = DSL.field(DSL.name("FIRST_NAME"), String.class);
+    private static final Field<String> LAST_NAME = DSL.field(DSL.name("LAST_NAME"), String.class);
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .recordQueryStats(true)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .register();
+
+    @BeforeEach
+    void setUp(DSLContext dsl) {
+        dsl.selectFrom(JEDI).fetch();
+    }
+
+    @Test
+    void should_not_count_before_each_statements(QueryStats tested) {
+        assertThat(tested.statementCount()).isZero();
+        assertThat(tested.rowsFetched()).isZero();
+    }
+
+    @Test
+    void should_count_statements(DSLContext dsl, QueryStats tested) {
+        dsl.selectFrom(JEDI).fetch();
+        dsl.selectOne().fetch();
+
+        assertThat(tested.statementCount()).isEqualTo(2);
+        assertThat(tested.statementCount(ExecuteType.READ)).isEqualTo(2);
+        assertThat(tested.rowsFetched()).isEqualTo(3);
+        assertThatCode(() -> tested.assertMaxStatements(2)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> tested.assertMaxStatements(1)).isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void should_detect_n_plus_one(DSLContext dsl, QueryStats tested) {
+        Stream.of("Kenobi", "Vador", "Skywalker").forEach(lastName ->
+                dsl.select(FIRST_NAME).from(JEDI).where(LAST_NAME.eq(lastName)).fetch());
+
+        assertThat(tested.repeatedStatements(QueryStats.DEFAULT_REPEAT_THRESHOLD)).hasSize(1);
+        assertThatThrownBy(tested::assertNoNPlusOne)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("N+1");
+    }
+
+    @Test
+    void should_not_report_same_statement_with_same_binds(DSLContext dsl, QueryStats tested) {
+        Stream.of("Kenobi", "Kenobi", "Kenobi").forEach(lastName ->
+                dsl.select(FIRST_NAME).from(JEDI).where(LAST_NAME.eq(lastName)).fetch());
+
+        assertThat(tested.statementCount()).isEqualTo(3);
+        assertThatCode(tested::assertNoNPlusOne).doesNotThrowAnyException();
+    }
+
+    @Test
+    void should_not_track_batch_bind_values(DSLContext dsl, QueryStats tested) {
+        dsl.batch(dsl.update(JEDI).set(FIRST_NAME, (String) null).where(LAST_NAME.eq((String) null)))
+                .bind("Ahsoka", "Tano")
+                .bind("Mace", "Windu")
+                .bind("Qui-Gon", "Jinn")
+                .execute();
+
+        assertThat(tested.statementCount(ExecuteType.BATCH)).isEqualTo(1);
+        assertThat(tested.repeatedStatements(1)).isEmpty();
+    }
+
+    @Test
+    void should_bound_distinct_bind_values(DSLContext dsl, QueryStats tested) {
+        IntStream.range(0, QueryStats.MAX_DISTINCT_BIND_VALUES + 100).forEach(i ->
+                dsl.select(FIRST_NAME).from(JEDI).where(LAST_NAME.eq("Clone-" + i)).fetch());
+
+        assertThat(tested.statementCount()).isEqualTo(QueryStats.MAX_DISTINCT_BIND_VALUES + 100);
+        assertThat(tested.repeatedStatements(QueryStats.DEFAULT_REPEAT_THRESHOLD).values())
+                .containsExactly(QueryStats.MAX_DISTINCT_BIND_VALUES);
+    }
+}
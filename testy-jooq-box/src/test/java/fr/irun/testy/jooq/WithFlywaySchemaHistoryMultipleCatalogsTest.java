@@ -0,0 +1,56 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.inject.Named;
+
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_1;
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_2;
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithFlywaySchemaHistoryMultipleCatalogsTest {
+    private static final String SQL_VERSIONS = "SELECT \"version\" FROM \"flyway_schema_history\" ORDER BY \"installed_rank\"";
+    private static final String FIRST_CATALOG = "history_first";
+    private static final String SECOND_CATALOG = "history_second";
+
+    private static final WithInMemoryDatasource wFirstDataSource = WithInMemoryDatasource.builder()
+            .setCatalog(FIRST_CATALOG)
+            .build();
+    private static final WithDslContext wFirstDsl = WithDslContext.builder()
+            .setDatasourceExtension(wFirstDataSource)
+            .build();
+    private static final WithFlywaySchemaHistory wFirstHistory = WithFlywaySchemaHistory.builder(wFirstDataSource)
+            .addVersions(VERSION_1)
+            .build();
+
+    private static final WithInMemoryDatasource wSecondDataSource = WithInMemoryDatasource.builder()
+            .setCatalog(SECOND_CATALOG)
+            .build();
+    private static final WithDslContext wSecondDsl = WithDslContext.builder()
+            .setDatasourceExtension(wSecondDataSource)
+            .build();
+    private static final WithFlywaySchemaHistory wSecondHistory = WithFlywaySchemaHistory.builder(wSecondDataSource)
+            .addVersions(VERSION_2, VERSION_3)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wFirstDataSource)
+            .append(wFirstDsl)
+            .append(wFirstHistory)
+            .append(wSecondDataSource)
+            .append(wSecondDsl)
+            .append(wSecondHistory)
+            .register();
+
+    @RepeatedTest(2)
+    void should_write_history_of_each_catalog(@Named(FIRST_CATALOG) DSLContext firstDsl,
+                                              @Named(SECOND_CATALOG) DSLContext secondDsl) {
+        assertThat(firstDsl.fetch(SQL_VERSIONS).getValues(0, String.class)).containsExactly("1");
+        assertThat(secondDsl.fetch(SQL_VERSIONS).getValues(0, String.class)).containsExactly("2", "3");
+    }
+}
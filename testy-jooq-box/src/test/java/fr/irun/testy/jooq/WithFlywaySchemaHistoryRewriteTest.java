@@ -0,0 +1,61 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_1;
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_2;
+import static fr.irun.testy.jooq.samples.FlywayVersionDataSet.VERSION_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class WithFlywaySchemaHistoryRewriteTest {
+    private static final String SQL_MAX_ROW_ID = "SELECT MAX(_ROWID_) FROM \"flyway_schema_history\"";
+    private static final String SQL_VERSIONS = "SELECT \"version\" FROM \"flyway_schema_history\" ORDER BY \"installed_rank\"";
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("test_db")
+            .build();
+    private static final WithDslContext wDsl = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithFlywaySchemaHistory wFlywayHistory = WithFlywaySchemaHistory.builder(wDataSource)
+            .addVersions(VERSION_1, VERSION_2, VERSION_3)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDsl)
+            .append(wFlywayHistory)
+            .register();
+
+    private static Object firstRowId;
+
+    @Test
+    @Order(1)
+    void should_write_history(DSLContext dsl) {
+        firstRowId = dsl.fetchValue(SQL_MAX_ROW_ID);
+        assertThat(dsl.fetch(SQL_VERSIONS).getValues(0, String.class)).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    @Order(2)
+    void should_skip_unchanged_history(DSLContext dsl) {
+        assertThat(dsl.fetchValue(SQL_MAX_ROW_ID)).isEqualTo(firstRowId);
+
+        dsl.execute("DELETE FROM \"flyway_schema_history\" WHERE \"version\" = '2'");
+    }
+
+    @Test
+    @Order(3)
+    void should_rewrite_modified_history(DSLContext dsl) {
+        assertThat(dsl.fetchValue(SQL_MAX_ROW_ID)).isNotEqualTo(firstRowId);
+        assertThat(dsl.fetch(SQL_VERSIONS).getValues(0, String.class)).containsExactly("1", "2", "3");
+    }
+}
@@ -0,0 +1,78 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.annotations.DbCatalogName;
+import fr.irun.testy.jooq.model.DatabaseStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ExtensionContextResolver.class)
+class WithInMemoryDatasourceNioMappedTest {
+    private static final String CATALOG_NAME = "mapped_catalog";
+    private static final String NIO_MAPPED_PREFIX = "nioMapped:";
+
+    @RegisterExtension
+    static WithInMemoryDatasource wDs = WithInMemoryDatasource.builder()
+            .setCatalog(CATALOG_NAME)
+            .setStorage(DatabaseStorage.NIO_MAPPED)
+            .build();
+
+    @Test
+    void should_store_database_in_mapped_file(DataSource tested, @DbCatalogName String catalog) throws SQLException {
+        WithInMemoryDatasourceTest.test_database_aware(tested, catalog);
+
+        try (Connection conn = tested.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DATABASE_PATH()")) {
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getString(1)).endsWith(CATALOG_NAME);
+        }
+    }
+
+    @Test
+    void should_delete_mapped_storage_after_all(ExtensionContext context) throws Exception {
+        assertStorageDeletedAfterAll(DatabaseStorage.NIO_MAPPED, context);
+    }
+
+    @Test
+    void should_delete_split_mapped_storage_after_all(ExtensionContext context) throws Exception {
+        assertStorageDeletedAfterAll(DatabaseStorage.SPLIT_NIO_MAPPED, context);
+    }
+
+    private static void assertStorageDeletedAfterAll(DatabaseStorage storage, ExtensionContext context)
+            throws Exception {
+        WithInMemoryDatasource tested = WithInMemoryDatasource.builder()
+                .setCatalog("deleted_catalog")
+                .setStorage(storage)
+                .build();
+        tested.beforeAll(context);
+        Path storageDir = getDatabasePath(tested.getDataSource(context)).getParent();
+        assertThat(storageDir).isDirectory();
+
+        tested.afterAll(context);
+
+        assertThat(storageDir).doesNotExist();
+    }
+
+    private static Path getDatabasePath(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DATABASE_PATH()")) {
+            rs.next();
+            // As nioMapped:/tmp/h2-catalog/catalog or split:30:nioMapped:/tmp/h2-catalog/catalog
+            String path = rs.getString(1);
+            return Paths.get(path.substring(path.indexOf(NIO_MAPPED_PREFIX) + NIO_MAPPED_PREFIX.length()));
+        }
+    }
+}
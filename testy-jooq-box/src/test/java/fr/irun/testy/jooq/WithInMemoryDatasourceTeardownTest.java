@@ -0,0 +1,65 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.jooq.model.DatabaseTeardown;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ExtensionContextResolver.class)
+class WithInMemoryDatasourceTeardownTest {
+
+    @Test
+    void should_keep_database_by_default(ExtensionContext context) throws Exception {
+        assertThat(tableExistsAfterAll(WithInMemoryDatasource.builder().build(), context)).isTrue();
+    }
+
+    @Test
+    void should_drop_all_objects(ExtensionContext context) throws Exception {
+        WithInMemoryDatasource tested = WithInMemoryDatasource.builder()
+                .setTeardown(DatabaseTeardown.DROP_ALL_OBJECTS)
+                .build();
+
+        assertThat(tableExistsAfterAll(tested, context)).isFalse();
+    }
+
+    @Test
+    void should_shutdown_database(ExtensionContext context) throws Exception {
+        WithInMemoryDatasource tested = WithInMemoryDatasource.builder()
+                .setTeardown(DatabaseTeardown.SHUTDOWN)
+                .build();
+
+        assertThat(tableExistsAfterAll(tested, context)).isFalse();
+    }
+
+    private static boolean tableExistsAfterAll(WithInMemoryDatasource tested, ExtensionContext context)
+            throws Exception {
+        tested.beforeAll(context);
+        DataSource dataSource = tested.getDataSource(context);
+        execute(dataSource, "CREATE TABLE JEDI (NAME VARCHAR(50))");
+
+        tested.afterAll(context);
+
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'JEDI'")) {
+            rs.next();
+            return rs.getInt(1) > 0;
+        }
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.samples.JediDataSet;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WithNetworkLatencyTest {
+    private static final WithInMemoryDatasource wIMDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wIMDataSource)
+            .build();
+    private static final WithNetworkLatency wDataSource = WithNetworkLatency.builder()
+            .setDatasourceExtension(wIMDataSource)
+            .setLatency(Duration.ofMillis(5))
+            .setJitter(Duration.ofMillis(1))
+            .setBandwidth(100_000)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithSampleDataLoaded wSamples = WithSampleDataLoaded.builder(wDslContext)
+            .addDataset(new JediDataSet())
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wIMDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDataSource)
+            .append(wDslContext)
+            .append(wSamples)
+            .register();
+
+    @Test
+    void should_delay_each_round_trip(DSLContext dsl, NetworkStats network) {
+        long begin = System.nanoTime();
+        for (String lastName : new String[]{"Skywalker", "Kenobi", "Vador"}) {
+            dsl.selectFrom(JEDI).where(JEDI.LAST_NAME.eq(lastName)).fetch();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+        assertThat(network.roundTrips()).isEqualTo(3);
+        assertThat(network.simulatedTime()).isGreaterThanOrEqualTo(Duration.ofMillis(12));
+        assertThat(elapsed).isGreaterThanOrEqualTo(network.simulatedTime());
+    }
+
+    @Test
+    void should_delay_rows_with_bandwidth(DSLContext dsl, NetworkStats network) {
+        dsl.selectFrom(JEDI).fetch();
+
+        assertThat(network.roundTrips()).isEqualTo(1);
+        assertThat(network.bytesTransferred()).isGreaterThan("LukeSkywalkerLIGHT".length());
+    }
+
+    @Test
+    void should_fail_on_chatty_access(DSLContext dsl, NetworkStats network) {
+        dsl.fetchCount(JEDI);
+        dsl.fetchCount(JEDI);
+
+        assertThatThrownBy(() -> network.assertMaxRoundTrips(1))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("2 were done");
+    }
+}
@@ -0,0 +1,57 @@
+package fr.irun.testy.jooq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ExtensionContextResolver.class)
+class WithPooledDatasourceRecycleTest {
+    private static final int POOL_SIZE = 2;
+
+    @Test
+    void should_restore_migration_data_of_recycled_catalog(ExtensionContext context) throws Exception {
+        WithPooledDatasource tested = WithPooledDatasource.builder()
+                .setCatalog("dummy")
+                .setPoolSize(POOL_SIZE)
+                .build();
+
+        List<DataSource> leased = new ArrayList<>();
+        for (int i = 0; i < 2 * POOL_SIZE + 1; i++) {
+            tested.beforeAll(context);
+            DataSource dataSource = tested.getDataSource(context);
+            assertThat(countJedi(dataSource)).isEqualTo(2);
+            leased.add(dataSource);
+
+            execute(dataSource, "DELETE FROM JEDI WHERE LAST_NAME = 'Vador'");
+            tested.afterAll(context);
+        }
+
+        assertThat(leased.stream().distinct().count()).as("recycled catalogs").isLessThan(leased.size());
+    }
+
+    private static int countJedi(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM JEDI")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.annotations.DbCatalogName;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithPooledDatasourceTest {
+    private static final WithPooledDatasource wDataSource = WithPooledDatasource.builder()
+            .setCatalog("dummy")
+            .setPoolSize(2)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDslContext)
+            .register();
+
+    @Test
+    void should_lease_migrated_catalog(DataSource dataSource, @DbCatalogName String catalog) throws SQLException {
+        assertThat(catalog).isEqualTo("dummy");
+        try (Connection conn = dataSource.getConnection()) {
+            assertThat(conn.getSchema()).isEqualTo(catalog);
+        }
+    }
+
+    @Test
+    void should_query_leased_catalog(DSLContext dsl) {
+        assertThat(dsl.fetchCount(DSL.table(DSL.name("JEDI")))).isEqualTo(2);
+    }
+}
@@ -0,0 +1,85 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.samples.JediDataSet;
+import io.r2dbc.spi.ConnectionFactory;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithReactiveDslContextTest {
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithSampleDataLoaded wSamples = WithSampleDataLoaded.builder(wDslContext)
+            .addDataset(new JediDataSet())
+            .build();
+    private static final WithReactiveDslContext wReactive = WithReactiveDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .append(wSamples)
+            .append(wReactive)
+            .register();
+
+    @Test
+    void should_read_data_loaded_with_jdbc(ReactiveDslContext tested) {
+        List<Record> actual = tested.fetch(tested.dsl().selectFrom(JEDI).where(JEDI.LAST_NAME.eq("Skywalker")))
+                .collectList().block();
+
+        assertThat(actual).hasSize(1);
+        assertThat(actual.get(0).get(JEDI.FIRST_NAME)).isEqualTo("Luke");
+    }
+
+    @Test
+    void should_write_data_visible_with_jdbc(ReactiveDslContext tested, DSLContext dsl) {
+        Integer actual = tested.execute(tested.dsl().insertInto(JEDI).values("Mace", "Windu", null)).block();
+
+        assertThat(actual).isEqualTo(1);
+        assertThat(dsl.fetchCount(JEDI)).isEqualTo(2);
+    }
+
+    @Test
+    void should_execute_concurrently_with_backpressure(ReactiveDslContext tested) {
+        Mono<Integer> inserts = Flux.range(0, 20)
+                .flatMap(i -> tested.execute(tested.dsl().insertInto(JEDI).values("Clone", "CT-" + i, "LIGHT")), 4)
+                .reduce(0, Integer::sum);
+        assertThat(inserts.block()).isEqualTo(20);
+
+        List<Record> firstOnes = tested.fetch(tested.dsl().selectFrom(JEDI).orderBy(JEDI.LAST_NAME))
+                .limitRate(2)
+                .take(3)
+                .collectList().block();
+        assertThat(firstOnes).extracting(r -> r.get(JEDI.LAST_NAME)).containsExactly("CT-0", "CT-1", "CT-10");
+    }
+
+    @Test
+    void should_inject_connection_factory(ConnectionFactory connectionFactory) {
+        Long actual = Mono.from(connectionFactory.create())
+                .flatMapMany(conn -> Flux.from(conn.createStatement("SELECT COUNT(*) FROM JEDI").execute())
+                        .concatMap(result -> result.map((row, meta) -> row.get(0, Long.class)))
+                        .concatWith(Mono.from(conn.close()).then(Mono.empty())))
+                .blockFirst();
+
+        assertThat(actual).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.model.CsvDataSet;
+import fr.irun.testy.jooq.samples.JediDataSet;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithSampleDataLoadedCsvTest {
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithSampleDataLoaded wSamples = WithSampleDataLoaded.builder(wDslContext)
+            .addDataset(new JediDataSet())
+            .addDataset(CsvDataSet.fromClasspath("JEDI", "fixtures/jedi.csv"))
+            .addDataset(CsvDataSet.fromClasspath("PADAWAN", "/fixtures/jedi.csv").asNewTable())
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .append(wSamples)
+            .register();
+
+    @RepeatedTest(2)
+    void should_load_csv_after_records(DSLContext dsl) {
+        assertThat(dsl.select(JEDI.LAST_NAME).from(JEDI).orderBy(JEDI.LAST_NAME).fetch(JEDI.LAST_NAME))
+                .containsExactly("Grogu", "Skywalker", "Windu");
+        assertThat(dsl.select(JEDI.FORCE_SIDE).from(JEDI).where(JEDI.LAST_NAME.eq("Grogu")).fetchOne(JEDI.FORCE_SIDE))
+                .isNull();
+
+        dsl.deleteFrom(JEDI).execute();
+    }
+
+    @Test
+    void should_create_table_from_csv(DSLContext dsl) {
+        assertThat(dsl.fetchCount(DSL.table(DSL.name("PADAWAN")))).isEqualTo(2);
+    }
+
+    @Test
+    void should_read_csv_header() {
+        assertThat(CsvDataSet.fromClasspath("JEDI", "fixtures/jedi.csv").header())
+                .containsExactly("FIRST_NAME", "LAST_NAME", "FORCE_SIDE");
+    }
+}
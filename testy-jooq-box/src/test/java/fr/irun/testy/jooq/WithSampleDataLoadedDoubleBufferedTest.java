@@ -0,0 +1,55 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.samples.JediDataSet;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithSampleDataLoadedDoubleBufferedTest {
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .doubleBuffered(true)
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithSampleDataLoaded wSamples = WithSampleDataLoaded.builder(wDslContext)
+            .addDataset(new JediDataSet())
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .append(wSamples)
+            .register();
+
+    @RepeatedTest(3)
+    void should_reset_sample_data_before_each_test(DSLContext dsl) {
+        assertThat(dsl.select(JEDI.LAST_NAME).from(JEDI).fetch(JEDI.LAST_NAME)).containsExactly("Skywalker");
+
+        dsl.insertInto(JEDI).values("Yoda", "Yoda", "LIGHT").execute();
+    }
+
+    @RepeatedTest(2)
+    void should_swap_databases(DataSource dataSource) {
+        assertThat(dataSource).isInstanceOf(SwitchableDataSource.class);
+        SwitchableDataSource tested = (SwitchableDataSource) dataSource;
+        DataSource previous = tested.active();
+
+        tested.swap();
+        assertThat(tested.active()).isNotSameAs(previous);
+        assertThat(tested.standby()).isSameAs(previous);
+        tested.swap();
+    }
+}
@@ -0,0 +1,139 @@
+package fr.irun.testy.jooq;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.jooq.WorkloadFile.Execution;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.irun.testy.jooq.samples.JediTable.JEDI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WorkloadReplayTest {
+    private static final Path WORKLOADS = Paths.get("target", "workloads");
+
+    private static final WithInMemoryDatasource wDataSource = WithInMemoryDatasource.builder()
+            .setCatalog("dummy")
+            .build();
+    private static final WithDatabaseLoaded wDatabaseLoaded = WithDatabaseLoaded.builder()
+            .setDatasourceExtension(wDataSource)
+            .build();
+    private static final WithDslContext wDslContext = WithDslContext.builder()
+            .setDatasourceExtension(wDataSource)
+            .recordWorkload(WORKLOADS)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wDataSource)
+            .append(wDatabaseLoaded)
+            .append(wDslContext)
+            .register();
+
+    @Test
+    void should_record_and_replay_workload(DataSource dataSource, @TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("jedi.workload.gz");
+        try (WorkloadFile workload = WorkloadFile.create(file)) {
+            WorkloadRecorder recorder = new WorkloadRecorder(workload);
+            DSLContext dsl = DSL.using(new DefaultConfiguration()
+                    .set(dataSource)
+                    .set(SQLDialect.H2)
+                    .set(new DefaultExecuteListenerProvider(recorder)));
+
+            dsl.fetchCount(JEDI);
+            recorder.start();
+            dsl.selectFrom(JEDI).where(JEDI.LAST_NAME.eq("Kenobi")).fetch();
+            dsl.update(JEDI).set(JEDI.FORCE_SIDE, "LIGHT").where(JEDI.LAST_NAME.eq("Vador")).execute();
+            dsl.selectFrom(JEDI).where(JEDI.LAST_NAME.eq("Vador")).fetch();
+            recorder.stop();
+            dsl.fetchCount(JEDI);
+
+            assertThat(workload.executions()).isEqualTo(3);
+        }
+
+        List<Execution> executions = WorkloadFile.read(file);
+        assertThat(executions).extracting(e -> e.bindValues[e.bindValues.length - 1])
+                .containsExactly("Kenobi", "Vador", "Vador");
+        assertThat(executions.get(0).sql).isSameAs(executions.get(2).sql);
+
+        WorkloadReport actual = WorkloadReplay.builder()
+                .addWorkload(file)
+                .setConcurrency(4)
+                .setIterations(10)
+                .setWarmupIterations(1)
+                .build()
+                .replay(dataSource);
+
+        assertThat(actual.executions()).isEqualTo(4 * 10 * 3);
+        assertThat(actual.errors()).isZero();
+        assertThat(actual.throughput()).isPositive();
+        assertThat(actual.p50()).isLessThanOrEqualTo(actual.p90());
+        assertThat(actual.p99()).isLessThanOrEqualTo(actual.max());
+    }
+
+    @Test
+    void should_fail_when_connection_fails(DataSource dataSource, @TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("count.workload.gz");
+        try (WorkloadFile workload = WorkloadFile.create(file)) {
+            workload.record("SELECT COUNT(*) FROM JEDI", Collections.emptyList());
+        }
+        AtomicInteger connections = new AtomicInteger();
+        JdbcDataSource failingDataSource = new JdbcDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (connections.incrementAndGet() > 1) {
+                    throw new SQLException("Too many connections");
+                }
+                return dataSource.getConnection();
+            }
+        };
+        WorkloadReplay tested = WorkloadReplay.builder()
+                .addWorkload(file)
+                .setConcurrency(4)
+                .build();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThatThrownBy(() -> tested.replay(failingDataSource))
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Workload replay failed")
+                        .hasRootCauseMessage("Too many connections"));
+    }
+
+    @Test
+    void should_open_workload_file_by_test_class(DSLContext dsl) {
+        dsl.fetchCount(JEDI);
+
+        assertThat(WORKLOADS.resolve(WorkloadReplayTest.class.getName() + "-dummy.workload.gz")).exists();
+    }
+
+    @Test
+    void should_compute_percentiles() {
+        WorkloadReport tested = new WorkloadReport(1, new long[]{5, 1, 4, 2, 3, 6, 7, 8, 9, 10}, 0,
+                Duration.ofSeconds(1));
+
+        assertThat(tested.p50().toNanos()).isEqualTo(5);
+        assertThat(tested.p90().toNanos()).isEqualTo(9);
+        assertThat(tested.p99().toNanos()).isEqualTo(10);
+        assertThat(tested.max().toNanos()).isEqualTo(10);
+        assertThat(tested.throughput()).isEqualTo(10);
+    }
+}
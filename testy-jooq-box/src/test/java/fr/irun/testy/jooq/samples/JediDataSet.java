@@ -0,0 +1,15 @@
+package fr.irun.testy.jooq.samples;
+
+import fr.irun.testy.jooq.model.RelationalDataSet;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class JediDataSet implements RelationalDataSet<JediTable.JediRecord> {
+    public static final JediTable.JediRecord LUKE = new JediTable.JediRecord("Luke", "Skywalker", "LIGHT");
+
+    @Override
+    public List<JediTable.JediRecord> records() {
+        return Collections.singletonList(LUKE);
+    }
+}
@@ -0,0 +1,44 @@
+package fr.irun.testy.jooq.samples;
+
+import org.jooq.TableField;
+import org.jooq.UniqueKey;
+import org.jooq.impl.DSL;
+import org.jooq.impl.Internal;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+import org.jooq.impl.UpdatableRecordImpl;
+
+public final class JediTable extends TableImpl<JediTable.JediRecord> {
+    public static final JediTable JEDI = new JediTable();
+
+    public final TableField<JediRecord, String> FIRST_NAME = createField(DSL.name("FIRST_NAME"), SQLDataType.VARCHAR(50), this, "");
+    public final TableField<JediRecord, String> LAST_NAME = createField(DSL.name("LAST_NAME"), SQLDataType.VARCHAR(50), this, "");
+    public final TableField<JediRecord, String> FORCE_SIDE = createField(DSL.name("FORCE_SIDE"), SQLDataType.VARCHAR(50), this, "");
+
+    private JediTable() {
+        super(DSL.name("JEDI"));
+    }
+
+    @Override
+    public Class<JediRecord> getRecordType() {
+        return JediRecord.class;
+    }
+
+    @Override
+    public UniqueKey<JediRecord> getPrimaryKey() {
+        return Internal.createUniqueKey(this, DSL.name("JEDI_PK"), LAST_NAME);
+    }
+
+    public static final class JediRecord extends UpdatableRecordImpl<JediRecord> {
+        public JediRecord() {
+            super(JEDI);
+        }
+
+        public JediRecord(String firstName, String lastName, String forceSide) {
+            super(JEDI);
+            set(JEDI.FIRST_NAME, firstName);
+            set(JEDI.LAST_NAME, lastName);
+            set(JEDI.FORCE_SIDE, forceSide);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package fr.irun.testy.mongo;
+
+import org.bson.RawBsonDocument;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Documents of a collection dumped by {@code mongodump} in a {@code .bson} file.
+ * <p>
+ * The file is memory-mapped and sliced into {@link RawBsonDocument}, without decoding the documents, so loading a
+ * production extract costs only the I/O and the copy of the bytes:
+ * </p>
+ * <pre><code>
+ * private static final WithMongoData wMongoData = WithMongoData.builder(wMongo)
+ *         .addStreamingDataset("users", BsonDumpDataSet.fromFile(Paths.get("dump/production/users.bson")))
+ *         .build();
+ * </code></pre>
+ * <p>
+ * The archives written by {@code mongodump --archive} and the compressed dumps are not supported, they shall be
+ * restored to {@code .bson} files first.
+ * </p>
+ */
+public final class BsonDumpDataSet implements StreamingMongoDataSet<RawBsonDocument> {
+    private static final long DEFAULT_REGION_SIZE = 256L * 1024 * 1024;
+    private static final int MIN_DOCUMENT_SIZE = 5;
+
+    private final Path file;
+    private final long regionSize;
+
+    BsonDumpDataSet(Path file, long regionSize) {
+        this.file = file;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @param file The {@code .bson} file of a collection.
+     * @return The data set reading the documents of the file.
+     */
+    public static BsonDumpDataSet fromFile(Path file) {
+        return new BsonDumpDataSet(file, DEFAULT_REGION_SIZE);
+    }
+
+    @Override
+    public Publisher<RawBsonDocument> documents() {
+        return Flux.using(() -> new Reader(file, regionSize), reader -> Flux.fromIterable(() -> reader), Reader::close);
+    }
+
+    /**
+     * Read the documents of the file through a sliding mapped region, a region being larger than the maximum size of
+     * a BSON document.
+     */
+    private static final class Reader implements Iterator<RawBsonDocument> {
+        private final Path file;
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long regionSize;
+        private long regionStart;
+        private MappedByteBuffer region;
+
+        private Reader(Path file, long regionSize) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.fileSize = channel.size();
+            this.regionSize = regionSize;
+            map(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return regionStart + region.position() < fileSize;
+        }
+
+        @Override
+        public RawBsonDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long position = regionStart + region.position();
+            if (region.remaining() < Integer.BYTES) {
+                map(position);
+            }
+            int length = region.getInt(region.position());
+            if (length < MIN_DOCUMENT_SIZE || position + length > fileSize) {
+                throw new IllegalStateException(String.format(
+                        "Invalid BSON document of %d bytes at offset %d of %s", length, position, file));
+            }
+            if (region.remaining() < length) {
+                map(position);
+            }
+            byte[] bytes = new byte[length];
+            region.get(bytes);
+            return new RawBsonDocument(bytes);
+        }
+
+        private void map(long position) {
+            try {
+                region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, fileSize - position));
+                region.order(ByteOrder.LITTLE_ENDIAN);
+                regionStart = position;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
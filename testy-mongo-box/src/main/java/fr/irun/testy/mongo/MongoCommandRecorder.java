@@ -0,0 +1,84 @@
+package fr.irun.testy.mongo;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the commands sent by a {@link com.mongodb.reactivestreams.client.MongoClient} in a {@link MongoCommandStats},
+ * between {@link #start()} and {@link #stop()}.
+ */
+final class MongoCommandRecorder implements CommandListener {
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private volatile MongoCommandStats stats = new MongoCommandStats();
+    private volatile boolean isActive;
+
+    /**
+     * Start recording in new statistics.
+     *
+     * @return The statistics of the next test.
+     */
+    MongoCommandStats reset() {
+        isActive = false;
+        stats = new MongoCommandStats();
+        return stats;
+    }
+
+    void start() {
+        isActive = true;
+    }
+
+    void stop() {
+        isActive = false;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (isActive) {
+            stats.recordCommand(event.getCommandName(), size(event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        if (!isActive) {
+            return;
+        }
+        BsonDocument response = event.getResponse();
+        int batchSize = 0;
+        boolean isPartialBatch = false;
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch")
+                    : cursor.asDocument().get("nextBatch");
+            batchSize = (batch != null && batch.isArray()) ? batch.asArray().size() : 0;
+            BsonValue cursorId = cursor.asDocument().get("id");
+            isPartialBatch = cursorId != null && cursorId.isNumber() && cursorId.asNumber().longValue() != 0;
+        }
+        stats.recordReply(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS),
+                size(response), batchSize, isPartialBatch);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        if (isActive) {
+            stats.recordFailure(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private static long size(BsonDocument document) {
+        RawBsonDocument raw = (document instanceof RawBsonDocument)
+                ? (RawBsonDocument) document
+                : new RawBsonDocument(document, CODEC);
+        return raw.getByteBuffer().remaining();
+    }
+}
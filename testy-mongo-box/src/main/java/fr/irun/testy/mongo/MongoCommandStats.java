@@ -0,0 +1,201 @@
+package fr.irun.testy.mongo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Commands sent to Mongo by the current test, recorded by {@link WithEmbeddedMongo} to catch the chatty data accesses.
+ * <p>
+ * Enabled with {@link WithEmbeddedMongo.WithEmbeddedMongoBuilder#recordCommands(boolean)}, this object can be
+ * injected as parameter of test methods:
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_find_all_users_in_one_query(MongoCommandStats commands) {
+ *         tested.findAll().blockLast();
+ *
+ *         commands.assertMaxCommands("find", 1);
+ *         commands.assertMaxGetMores(2);
+ *     }
+ * </code></pre>
+ * <p>
+ * Only the commands sent during the execution of the test method are recorded, not the ones of the
+ * {@code BeforeEach}, as the reset of the collections by {@link WithMongoData}.
+ * </p>
+ */
+public final class MongoCommandStats {
+    private static final String GET_MORE = "getMore";
+
+    private final Map<String, Long> commands = new TreeMap<>();
+    private final List<Long> latencies = new ArrayList<>();
+    private long failures;
+    private long documentsReturned;
+    private long bytesSent;
+    private long bytesReceived;
+    private int smallestPartialBatch = Integer.MAX_VALUE;
+    private String smallestPartialBatchCommand;
+
+    MongoCommandStats() {
+    }
+
+    synchronized void recordCommand(String commandName, long bytes) {
+        commands.merge(commandName, 1L, Long::sum);
+        bytesSent += bytes;
+    }
+
+    synchronized void recordReply(String commandName, long nanos, long bytes, int batchSize, boolean isPartialBatch) {
+        latencies.add(nanos);
+        bytesReceived += bytes;
+        documentsReturned += batchSize;
+        if (isPartialBatch && batchSize < smallestPartialBatch) {
+            smallestPartialBatch = batchSize;
+            smallestPartialBatchCommand = commandName;
+        }
+    }
+
+    synchronized void recordFailure(long nanos) {
+        latencies.add(nanos);
+        failures++;
+    }
+
+    /**
+     * @return The count of commands sent during the test.
+     */
+    public synchronized long commands() {
+        return commands.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @param commandName The name of the command, as {@code find}, {@code aggregate} or {@code getMore}.
+     * @return The count of commands of this name sent during the test.
+     */
+    public synchronized long commands(String commandName) {
+        return commands.getOrDefault(commandName, 0L);
+    }
+
+    /**
+     * @return The count of commands sent during the test, by command name.
+     */
+    public synchronized Map<String, Long> commandsByName() {
+        return Collections.unmodifiableMap(new TreeMap<>(commands));
+    }
+
+    /**
+     * @return The count of commands failed during the test.
+     */
+    public synchronized long failures() {
+        return failures;
+    }
+
+    /**
+     * @return The count of documents returned in the cursor batches during the test.
+     */
+    public synchronized long documentsReturned() {
+        return documentsReturned;
+    }
+
+    /**
+     * @return The count of BSON bytes of the commands sent during the test.
+     */
+    public synchronized long bytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return The count of BSON bytes of the replies received during the test.
+     */
+    public synchronized long bytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Compute a percentile of the round trip latencies with the nearest rank method.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency under which the given percentage of the commands completed.
+     */
+    public synchronized Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (latencies.isEmpty()) {
+            return Duration.ZERO;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return Duration.ofNanos(sorted[Math.max(rank, 1) - 1]);
+    }
+
+    public Duration p50() {
+        return percentile(50);
+    }
+
+    public Duration p99() {
+        return percentile(99);
+    }
+
+    /**
+     * Check that no more than {@code max} commands were sent during the test.
+     *
+     * @param max The maximum count of commands.
+     * @throws AssertionError if more commands were sent.
+     */
+    public synchronized void assertMaxCommands(long max) {
+        if (commands() > max) {
+            throw new AssertionError(String.format("Expected at most %d commands but %d were sent: %s",
+                    max, commands(), commands));
+        }
+    }
+
+    /**
+     * Check that no more than {@code max} commands of a name were sent during the test.
+     *
+     * @param commandName The name of the command, as {@code find}.
+     * @param max         The maximum count of commands.
+     * @throws AssertionError if more commands were sent.
+     */
+    public synchronized void assertMaxCommands(String commandName, long max) {
+        if (commands(commandName) > max) {
+            throw new AssertionError(String.format("Expected at most %d %s commands but %d were sent",
+                    max, commandName, commands(commandName)));
+        }
+    }
+
+    /**
+     * Check that the cursors were not read by many small batches.
+     *
+     * @param max The maximum count of {@code getMore} commands.
+     * @throws AssertionError if more {@code getMore} commands were sent.
+     */
+    public synchronized void assertMaxGetMores(long max) {
+        if (commands(GET_MORE) > max) {
+            throw new AssertionError(String.format("Expected at most %d getMore commands but %d were sent for %d documents returned",
+                    max, commands(GET_MORE), documentsReturned));
+        }
+    }
+
+    /**
+     * Check that the batches of the cursors, except the last one of each cursor, contain at least {@code min}
+     * documents.
+     *
+     * @param min The minimum count of documents of a batch.
+     * @throws AssertionError if a smaller batch was returned.
+     */
+    public synchronized void assertMinBatchSize(int min) {
+        if (smallestPartialBatch < min) {
+            throw new AssertionError(String.format("Expected batches of at least %d documents but a %s returned %d documents",
+                    min, smallestPartialBatchCommand, smallestPartialBatch));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d commands %s, %d failed, %d documents, %d bytes sent, %d bytes received, p50=%dµs p99=%dµs",
+                commands(), commands, failures, documentsReturned, bytesSent, bytesReceived,
+                p50().toNanos() / 1_000, p99().toNanos() / 1_000);
+    }
+}
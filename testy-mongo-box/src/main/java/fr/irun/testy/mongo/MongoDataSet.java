@@ -17,4 +17,14 @@ public interface MongoDataSet<T> {
      */
     List<T> documents();
 
+    /**
+     * Whether the {@code _id} of the documents is generated by the database at each reset of the collection,
+     * instead of being kept from the documents.
+     *
+     * @return {@code true} to insert new identifiers at each reset.
+     */
+    default boolean generateIds() {
+        return false;
+    }
+
 }
@@ -0,0 +1,75 @@
+package fr.irun.testy.mongo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * File of the query plans of a test class, sorted to be committed and diffed between two versions of the code.
+ * <p>
+ * Each line holds the test method and the summary of the plan of an operation. The changes since the previous
+ * content of the file are logged as warnings.
+ * </p>
+ */
+final class MongoQueryPlanBaseline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoQueryPlanBaseline.class);
+
+    private final Path file;
+    private final SortedSet<String> lines = new TreeSet<>();
+
+    MongoQueryPlanBaseline(Path file) {
+        this.file = file;
+    }
+
+    synchronized void record(String testName, List<MongoQueryPlans.QueryPlan> plans) {
+        plans.forEach(plan -> lines.add(testName + " | " + plan));
+    }
+
+    /**
+     * Replace the content of the file by the recorded plans.
+     *
+     * @return The lines added or removed since the previous content, prefixed by {@code +} or {@code -}.
+     */
+    synchronized List<String> write() {
+        try {
+            Set<String> previous = Files.exists(file)
+                    ? new HashSet<>(Files.readAllLines(file, StandardCharsets.UTF_8))
+                    : null;
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            if (previous == null) {
+                LOGGER.info("Query plans baseline created in {}", file);
+                return Collections.emptyList();
+            }
+
+            List<String> changes = previous.stream()
+                    .filter(line -> !lines.contains(line))
+                    .sorted()
+                    .map(line -> "- " + line)
+                    .collect(Collectors.toList());
+            lines.stream()
+                    .filter(line -> !previous.contains(line))
+                    .map(line -> "+ " + line)
+                    .forEach(changes::add);
+            if (!changes.isEmpty()) {
+                LOGGER.warn("Query plans changed in {}:{}{}", file, System.lineSeparator(),
+                        String.join(System.lineSeparator(), changes));
+            }
+            return changes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the query plans baseline " + file, e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Query plans of the operations run by the current test, captured by the profiler of the database to catch the
+ * missing indexes.
+ * <p>
+ * Enabled with {@link WithEmbeddedMongo.WithEmbeddedMongoBuilder#captureQueryPlans(boolean)}, this object can be
+ * injected as parameter of test methods:
+ * </p>
+ * <pre><code>
+ *     {@literal @}Test
+ *     void should_find_user_by_login(MongoQueryPlans queryPlans) {
+ *         tested.findByLogin("okenobi").block();
+ *
+ *         queryPlans.assertNoCollectionScan();
+ *         queryPlans.assertMaxKeysExaminedRatio(2);
+ *     }
+ * </code></pre>
+ * <p>
+ * The profiler records all the operations of the test database, at level 2, during the execution of the test method
+ * only. The plans are read from {@code system.profile} at each call.
+ * </p>
+ */
+public final class MongoQueryPlans {
+    private static final String PROFILE_COLLECTION = "system.profile";
+    private static final Set<String> SHAPE_FIELDS = ImmutableSet.of(
+            "filter", "query", "q", "sort", "pipeline", "projection", "key");
+    private static final Set<String> COMMAND_OPS = ImmutableSet.of("query", "command", "getmore");
+    private static final Pattern INDEX_SCAN = Pattern.compile("IXSCAN \\{ ([^}]*) }");
+
+    private final MongoDatabase database;
+    private volatile Date since = new Date(Long.MAX_VALUE);
+
+    MongoQueryPlans(MongoDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Start the profiler for the test.
+     */
+    void start() {
+        since = new Date();
+        Mono.from(database.runCommand(new Document("profile", 2))).block();
+    }
+
+    /**
+     * Stop the profiler after the test.
+     */
+    void stop() {
+        Mono.from(database.runCommand(new Document("profile", 0))).block();
+    }
+
+    /**
+     * @return The plans of the operations run since the start of the test, in the order of execution.
+     */
+    public List<QueryPlan> plans() {
+        String profileNamespace = database.getName() + '.' + PROFILE_COLLECTION;
+        return Flux.from(database.getCollection(PROFILE_COLLECTION, BsonDocument.class)
+                .find(Filters.and(
+                        Filters.gte("ts", since),
+                        Filters.exists("planSummary"),
+                        Filters.ne("ns", profileNamespace)))
+                .sort(Sorts.ascending("ts")))
+                .map(QueryPlan::new)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Check that no operation scanned a whole collection.
+     *
+     * @throws AssertionError if an operation used a {@code COLLSCAN}.
+     */
+    public void assertNoCollectionScan() {
+        assertNone(QueryPlan::isCollectionScan, "collection scan");
+    }
+
+    /**
+     * Check that no operation sorted the documents in memory, instead of reading them in the order of an index.
+     *
+     * @throws AssertionError if an operation used a blocking sort.
+     */
+    public void assertNoInMemorySort() {
+        assertNone(QueryPlan::hasInMemorySort, "in-memory sort");
+    }
+
+    /**
+     * Check that the operations did not examine many index keys for each document returned, as with an index not
+     * selective enough.
+     *
+     * @param max The maximum count of keys examined by document returned.
+     * @throws AssertionError if an operation examined more keys.
+     */
+    public void assertMaxKeysExaminedRatio(double max) {
+        assertNone(plan -> plan.keysExaminedRatio() > max, "ratio of keys examined above " + max);
+    }
+
+    private void assertNone(Predicate<QueryPlan> isViolation, String violation) {
+        List<QueryPlan> violations = plans().stream().filter(isViolation).collect(Collectors.toList());
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Queries with " + violation + ":" + System.lineSeparator()
+                    + violations.stream().map(p -> "  " + p).collect(Collectors.joining(System.lineSeparator())));
+        }
+    }
+
+    /**
+     * Summary of the plan of an operation recorded by the profiler.
+     */
+    public static final class QueryPlan {
+        private final String operation;
+        private final String collection;
+        private final String shape;
+        private final String planSummary;
+        private final boolean hasInMemorySort;
+        private final long keysExamined;
+        private final long docsExamined;
+        private final long returned;
+
+        QueryPlan(BsonDocument profile) {
+            String namespace = profile.getString("ns", new BsonString("")).getValue();
+            BsonDocument command = profile.getDocument("command", new BsonDocument());
+            String op = profile.getString("op", new BsonString("command")).getValue();
+            this.operation = (COMMAND_OPS.contains(op) && !command.isEmpty()) ? command.getFirstKey() : op;
+            this.collection = namespace.substring(namespace.indexOf('.') + 1);
+            this.shape = command.entrySet().stream()
+                    .filter(e -> SHAPE_FIELDS.contains(e.getKey()))
+                    .map(e -> e.getKey() + ": " + shape(e.getValue()))
+                    .collect(Collectors.joining(", ", "{", "}"));
+            this.planSummary = profile.getString("planSummary").getValue();
+            this.hasInMemorySort = profile.getBoolean("hasSortStage", BsonBoolean.FALSE).getValue()
+                    || hasPipelineSort(command, planSummary);
+            this.keysExamined = count(profile, "keysExamined");
+            this.docsExamined = count(profile, "docsExamined");
+            this.returned = count(profile, "nreturned") + count(profile, "nMatched") + count(profile, "ndeleted");
+        }
+
+        /**
+         * @return The command of the operation, as {@code find} or {@code aggregate}, or the kind of write, as
+         * {@code update} or {@code remove}.
+         */
+        public String operation() {
+            return operation;
+        }
+
+        public String collection() {
+            return collection;
+        }
+
+        /**
+         * @return The filter, sort and pipeline of the operation, with the values replaced by {@code ?}.
+         */
+        public String shape() {
+            return shape;
+        }
+
+        /**
+         * @return The summary of the winning plan, as {@code IXSCAN { login: 1 }} or {@code COLLSCAN}.
+         */
+        public String planSummary() {
+            return planSummary;
+        }
+
+        public boolean isCollectionScan() {
+            return planSummary.contains("COLLSCAN");
+        }
+
+        public boolean hasInMemorySort() {
+            return hasInMemorySort;
+        }
+
+        public long keysExamined() {
+            return keysExamined;
+        }
+
+        public long docsExamined() {
+            return docsExamined;
+        }
+
+        /**
+         * @return The count of documents returned, or matched by an update or a delete.
+         */
+        public long returned() {
+            return returned;
+        }
+
+        /**
+         * @return The count of index keys examined by document returned, 1 for an exact index.
+         */
+        public double keysExaminedRatio() {
+            return (double) keysExamined / Math.max(returned, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s %s: %s%s, keys=%d docs=%d returned=%d",
+                    operation, collection, shape, planSummary, hasInMemorySort ? " + SORT" : "",
+                    keysExamined, docsExamined, returned);
+        }
+
+        private static long count(BsonDocument profile, String field) {
+            BsonValue value = profile.get(field);
+            return (value != null && value.isNumber()) ? value.asNumber().longValue() : 0;
+        }
+
+        /**
+         * The {@code $sort} of a pipeline is not reported by {@code hasSortStage}, and the plan summary only shows
+         * the scan: the sort is run by the query only when it follows the {@code $match} stages and the index scanned
+         * provides the order, else the documents are sorted in memory by the pipeline.
+         */
+        private static boolean hasPipelineSort(BsonDocument command, String planSummary) {
+            BsonValue pipeline = command.get("pipeline");
+            if (pipeline == null || !pipeline.isArray()) {
+                return false;
+            }
+            BsonDocument filter = new BsonDocument();
+            boolean isQueryStage = true;
+            for (BsonValue value : pipeline.asArray()) {
+                BsonDocument stage = value.isDocument() ? value.asDocument() : new BsonDocument();
+                BsonValue match = stage.get("$match");
+                BsonValue sort = stage.get("$sort");
+                if (isQueryStage && match != null && match.isDocument()) {
+                    filter.putAll(match.asDocument());
+                } else if (sort != null) {
+                    if (!isQueryStage || !sort.isDocument() || !isIndexSort(sort.asDocument(), filter, planSummary)) {
+                        return true;
+                    }
+                    isQueryStage = false;
+                } else {
+                    isQueryStage = false;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isIndexSort(BsonDocument sort, BsonDocument filter, String planSummary) {
+            Matcher indexScan = INDEX_SCAN.matcher(planSummary);
+            if (!indexScan.find()) {
+                return false;
+            }
+            String keyPattern = indexScan.group(1);
+            if (indexScan.find()) {
+                // Several indexes merged
+                return false;
+            }
+            List<String[]> keys = Arrays.stream(keyPattern.split(",\\s*"))
+                    .map(key -> key.split(":\\s*", 2))
+                    .collect(Collectors.toList());
+
+            // The sort may start after the first fields of the index, when the filter makes them constant
+            for (int start = 0; start < keys.size(); start++) {
+                if (isIndexSort(sort, keys.subList(start, keys.size()))) {
+                    return true;
+                }
+                if (!isEquality(filter.get(keys.get(start)[0]))) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isIndexSort(BsonDocument sort, List<String[]> keys) {
+            if (sort.isEmpty() || sort.size() > keys.size()) {
+                return false;
+            }
+            int i = 0;
+            Set<Boolean> sameDirections = new HashSet<>();
+            for (Map.Entry<String, BsonValue> field : sort.entrySet()) {
+                String[] key = keys.get(i++);
+                if (key.length != 2 || !key[0].equals(field.getKey()) || !field.getValue().isNumber()
+                        || !key[1].matches("-?\\d+(\\.\\d+)?")) {
+                    return false;
+                }
+                sameDirections.add((field.getValue().asNumber().doubleValue() > 0) == (Double.parseDouble(key[1]) > 0));
+            }
+            // An index is read in both directions
+            return sameDirections.size() == 1;
+        }
+
+        private static boolean isEquality(BsonValue condition) {
+            return condition != null && !condition.isRegularExpression() && (!condition.isDocument()
+                    || (condition.asDocument().size() == 1 && condition.asDocument().containsKey("$eq")));
+        }
+
+        private static String shape(BsonValue value) {
+            if (value.isDocument()) {
+                return value.asDocument().entrySet().stream()
+                        .map(e -> e.getKey() + ": " + shape(e.getValue()))
+                        .collect(Collectors.joining(", ", "{", "}"));
+            } else if (value.isArray()) {
+                BsonArray array = value.asArray();
+                return array.isEmpty() ? "[]" : array.stream()
+                        .map(MongoQueryPlans.QueryPlan::shape)
+                        .distinct()
+                        .collect(Collectors.joining(", ", "[", "]"));
+            }
+            return "?";
+        }
+    }
+}
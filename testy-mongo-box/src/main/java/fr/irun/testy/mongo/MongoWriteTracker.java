@@ -0,0 +1,114 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Record the collections of a database written, from the commands sent by a {@link
+ * com.mongodb.reactivestreams.client.MongoClient}.
+ * <p>
+ * Each write is numbered by a generation. The tracker is shared by all the extensions resetting collections of the
+ * database, each one remembering the {@link #generation()} of its last reset to select the collections written since.
+ * </p><p>
+ * The collections are written by the {@code insert}, {@code update}, {@code delete}, {@code findAndModify} and
+ * {@code drop} commands. The commands writing collections not named by the command, as {@code dropDatabase},
+ * {@code renameCollection} or an aggregation with {@code $out}, mark all the collections as written.
+ * </p>
+ */
+final class MongoWriteTracker implements CommandListener {
+    private static final Set<String> WRITE_COMMANDS = ImmutableSet.of(
+            "insert", "update", "delete", "findAndModify", "findandmodify", "drop");
+    private static final Set<String> DATABASE_COMMANDS = ImmutableSet.of(
+            "dropDatabase", "renameCollection", "mapReduce", "mapreduce");
+    private static final Set<String> OUTPUT_STAGES = ImmutableSet.of("$out", "$merge");
+
+    private final String databaseName;
+    private final Map<String, Long> writtenCollections = new HashMap<>();
+    private long generation = 0;
+    private long databaseWrittenGeneration = 0;
+
+    MongoWriteTracker(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!databaseName.equals(event.getDatabaseName()) && !"admin".equals(event.getDatabaseName())) {
+            return;
+        }
+        String commandName = event.getCommandName();
+        BsonDocument command = event.getCommand();
+        if (WRITE_COMMANDS.contains(commandName)) {
+            BsonValue collection = command.get(commandName);
+            if (collection != null && collection.isString()) {
+                written(collection.asString().getValue());
+            }
+        } else if (DATABASE_COMMANDS.contains(commandName)
+                || ("aggregate".equals(commandName) && hasOutputStage(command))) {
+            databaseWritten();
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        // The collection is considered as written as soon as the command is sent
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        // A failed command may have written documents before failing
+    }
+
+    /**
+     * Select the written collections. The database is considered as written at the creation of the tracker, at
+     * generation {@code 0}.
+     *
+     * @param collections The collections to check.
+     * @param since       The generation of the last reset, negative before the first one.
+     * @return The collections written after the generation.
+     */
+    synchronized Set<String> written(Collection<String> collections, long since) {
+        return (databaseWrittenGeneration > since) ? new HashSet<>(collections) : collections.stream()
+                .filter(collection -> writtenCollections.getOrDefault(collection, -1L) > since)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return The generation of the last write, to remember after a reset.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized void written(String collection) {
+        writtenCollections.put(collection, ++generation);
+    }
+
+    private synchronized void databaseWritten() {
+        databaseWrittenGeneration = ++generation;
+    }
+
+    private static boolean hasOutputStage(BsonDocument command) {
+        BsonValue pipeline = command.get("pipeline");
+        if (pipeline == null || !pipeline.isArray()) {
+            return false;
+        }
+        BsonArray stages = pipeline.asArray();
+        return stages.stream()
+                .filter(BsonValue::isDocument)
+                .anyMatch(stage -> stage.asDocument().keySet().stream().anyMatch(OUTPUT_STAGES::contains));
+    }
+}
@@ -0,0 +1,241 @@
+package fr.irun.testy.mongo;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.Paths;
+import de.flapdoodle.embed.mongo.config.DownloadConfigBuilder;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.config.store.IDownloadConfig;
+import de.flapdoodle.embed.process.config.store.IPackageResolver;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.Extractors;
+import de.flapdoodle.embed.process.extract.FilesToExtract;
+import de.flapdoodle.embed.process.extract.IExtractedFileSet;
+import de.flapdoodle.embed.process.extract.ImmutableExtractedFileSet;
+import de.flapdoodle.embed.process.extract.NoopTempNaming;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * An {@link IArtifactStore} reading the mongod distributions from a local directory or archive, without download.
+ * <p>
+ * Each archive is extracted once in a cache directory shared by all the processes, under a file lock. The following
+ * processes start the extracted binary directly, without copying it in a temporary directory. The extraction is
+ * written in a temporary directory and moved at the end, so an interrupted extraction is never used.
+ * </p><p>
+ * When a file {@code <archive>.sha256} is next to the archive, the archive is checked against it before the
+ * extraction. The size of the extracted files is recorded and checked before each start.
+ * </p>
+ */
+final class MongodArtifactCache implements IArtifactStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongodArtifactCache.class);
+    private static final String MARKER = ".extracted";
+    private static final String CHECKSUM_EXTENSION = ".sha256";
+
+    private final Path artifacts;
+    private final Path cacheDirectory;
+    private final IPackageResolver packageResolver = new Paths(Command.MongoD);
+    private final IDownloadConfig downloadConfig = new DownloadConfigBuilder().defaultsForCommand(Command.MongoD).build();
+
+    /**
+     * @param artifacts      A mongod archive, or a directory of archives laid out as the flapdoodle download
+     *                       directory, {@code <platform>/<archive>}, or flat.
+     * @param cacheDirectory The directory of the extracted binaries.
+     */
+    MongodArtifactCache(Path artifacts, Path cacheDirectory) {
+        this.artifacts = artifacts;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    @Override
+    public boolean checkDistribution(Distribution distribution) {
+        Path archive = archive(distribution);
+        return Files.isRegularFile(archive) || Files.isRegularFile(target(archive).resolve(MARKER));
+    }
+
+    @Override
+    public IExtractedFileSet extractFileSet(Distribution distribution) throws IOException {
+        Path archive = archive(distribution);
+        Path target = target(archive);
+
+        IExtractedFileSet fileSet = readExtracted(target);
+        if (fileSet != null) {
+            return fileSet;
+        }
+        if (!Files.isRegularFile(archive)) {
+            throw new IOException("No mongod archive for " + distribution + " in " + artifacts);
+        }
+
+        Files.createDirectories(cacheDirectory);
+        // The file lock is held by the JVM, the threads of the same JVM are serialized on the class
+        synchronized (MongodArtifactCache.class) {
+            try (FileChannel channel = FileChannel.open(cacheDirectory.resolve(archiveName(archive) + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignore = channel.lock()) {
+                fileSet = readExtracted(target);
+                if (fileSet == null) {
+                    fileSet = extract(distribution, archive, target);
+                }
+                return fileSet;
+            }
+        }
+    }
+
+    @Override
+    public void removeFileSet(Distribution distribution, IExtractedFileSet files) {
+        // The extracted binaries are kept for the next processes
+    }
+
+    private Path archive(Distribution distribution) {
+        if (!Files.isDirectory(artifacts)) {
+            return artifacts;
+        }
+        Path archive = artifacts.resolve(packageResolver.getPath(distribution));
+        return Files.isRegularFile(archive) ? archive : artifacts.resolve(archive.getFileName());
+    }
+
+    private Path target(Path archive) {
+        return cacheDirectory.resolve(archiveName(archive));
+    }
+
+    private IExtractedFileSet extract(Distribution distribution, Path archive, Path target) throws IOException {
+        long begin = System.nanoTime();
+        String checksum = checkArchive(archive);
+
+        Path tmp = Files.createTempDirectory(cacheDirectory, archiveName(archive) + '.');
+        try {
+            IExtractedFileSet extracted = Extractors.getExtractor(packageResolver.getArchiveType(distribution))
+                    .extract(downloadConfig, archive.toFile(), new FilesToExtract(
+                            new FixedPath(tmp.toString()), new NoopTempNaming(), packageResolver.getFileSet(distribution)));
+
+            Properties marker = new Properties();
+            marker.setProperty("archive", archive.getFileName().toString());
+            marker.setProperty("archive.sha256", checksum);
+            marker.setProperty("executable", extracted.executable().getName());
+            marker.setProperty("size." + extracted.executable().getName(), Long.toString(extracted.executable().length()));
+            for (FileType type : FileType.values()) {
+                List<File> files = extracted.files(type);
+                for (int i = 0; i < files.size(); i++) {
+                    File file = files.get(i);
+                    marker.setProperty(type.name() + '.' + i, file.getName());
+                    marker.setProperty("size." + file.getName(), Long.toString(file.length()));
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(tmp.resolve(MARKER))) {
+                marker.store(out, "Extracted by testy-box");
+            }
+
+            deleteRecursively(target);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteRecursively(tmp);
+        }
+
+        LOGGER.info("{} extracted in {} in {} ms",
+                archive.getFileName(), target, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        return readExtracted(target);
+    }
+
+    private static IExtractedFileSet readExtracted(Path target) throws IOException {
+        Path markerFile = target.resolve(MARKER);
+        if (!Files.isRegularFile(markerFile)) {
+            return null;
+        }
+        Properties marker = new Properties();
+        try (InputStream in = Files.newInputStream(markerFile)) {
+            marker.load(in);
+        }
+
+        String executable = marker.getProperty("executable");
+        if (executable == null || !isIntact(target, marker, executable)) {
+            return null;
+        }
+        ImmutableExtractedFileSet.Builder builder = ImmutableExtractedFileSet.builder(target.toFile())
+                .baseDirIsGenerated(false)
+                .executable(target.resolve(executable).toFile());
+        for (FileType type : FileType.values()) {
+            String name;
+            for (int i = 0; (name = marker.getProperty(type.name() + '.' + i)) != null; i++) {
+                if (!isIntact(target, marker, name)) {
+                    return null;
+                }
+                if (!name.equals(executable)) {
+                    builder.file(type, target.resolve(name).toFile());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isIntact(Path target, Properties marker, String name) {
+        File file = target.resolve(name).toFile();
+        if (file.isFile() && Long.toString(file.length()).equals(marker.getProperty("size." + name))) {
+            return true;
+        }
+        LOGGER.warn("{} is missing or corrupted, the archive will be extracted again", file);
+        return false;
+    }
+
+    private static String checkArchive(Path archive) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(archive), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) >= 0) {
+                // Read the whole archive for the digest
+            }
+        }
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : digest.digest()) {
+            checksum.append(String.format("%02x", b));
+        }
+
+        Path expectedFile = archive.resolveSibling(archive.getFileName() + CHECKSUM_EXTENSION);
+        if (Files.isRegularFile(expectedFile)) {
+            String expected = new String(Files.readAllBytes(expectedFile), StandardCharsets.US_ASCII).trim().split("\\s+")[0];
+            if (!expected.equalsIgnoreCase(checksum.toString())) {
+                throw new IOException("Checksum mismatch for " + archive + ": expected " + expected + " but was " + checksum);
+            }
+        }
+        return checksum.toString();
+    }
+
+    private static String archiveName(Path archive) {
+        String name = archive.getFileName().toString();
+        return name.replaceFirst("\\.(tgz|tar\\.gz|tbz2|tar\\.bz2|txz|tar\\.xz|zip|exe)$", "");
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fr.irun.testy.mongo;
+
+import de.flapdoodle.embed.mongo.config.MongoCmdOptionsBuilder;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Feature;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Storage settings of the embedded mongod, selected by {@link WithEmbeddedMongo.WithEmbeddedMongoBuilder#setProfile(MongodProfile)}.
+ * <p>
+ * The data of the tests are never kept after the end of the mongod, so the durability of the writes is useless. The
+ * {@link #TMPFS} and {@link #EPHEMERAL} profiles avoid the fsync of the inserts and the drops of the fixtures.
+ * </p>
+ */
+public enum MongodProfile {
+    /**
+     * The default settings of mongod: WiredTiger with journal, database in the temporary directory.
+     */
+    DEFAULT,
+
+    /**
+     * WiredTiger without journal nor periodic checkpoint, with a cache of 256 MB. The database is on
+     * {@code /dev/shm} when available.
+     * <p>
+     * Prefer this profile to {@link #EPHEMERAL} when the tests depend on WiredTiger, as the transactions or the
+     * change streams.
+     * </p>
+     */
+    TMPFS,
+
+    /**
+     * The {@code ephemeralForTest} storage engine, keeping the data in memory. The database, containing only the
+     * lock and diagnostic files, is on {@code /dev/shm} when available.
+     * <p>
+     * The versions of mongod without storage engine selection use MMAPv1 without journal.
+     * </p>
+     */
+    EPHEMERAL;
+
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+    private static final String WIRED_TIGER_CACHE_SIZE_GB = "0.25";
+
+    /**
+     * Apply the profile to the configuration of mongod.
+     *
+     * @param builder The configuration of mongod.
+     * @param version The version of mongod.
+     * @param dbPath  The database directory, {@code null} for the default temporary directory.
+     */
+    void configure(MongodConfigBuilder builder, IFeatureAwareVersion version, Path dbPath) {
+        if (this == DEFAULT) {
+            return;
+        }
+        if (dbPath != null) {
+            builder.replication(new Storage(dbPath.toString(), null, 0));
+        }
+
+        MongoCmdOptionsBuilder cmdOptions = new MongoCmdOptionsBuilder()
+                .syncDelay(0);
+        if (!version.enabled(Feature.STORAGE_ENGINE)) {
+            // MMAPv1, the only engine of these versions
+            cmdOptions.useNoJournal(true)
+                    .useNoPrealloc(true)
+                    .useSmallFiles(true);
+        } else if (this == EPHEMERAL) {
+            cmdOptions.useStorageEngine("ephemeralForTest");
+        } else {
+            cmdOptions.useNoJournal(true)
+                    .useStorageEngine("wiredTiger");
+            builder.withLaunchArgument("--wiredTigerCacheSizeGB", WIRED_TIGER_CACHE_SIZE_GB);
+        }
+        builder.cmdOptions(cmdOptions.build());
+    }
+
+    /**
+     * Create the database directory of a mongod, on {@code /dev/shm} when it is available.
+     *
+     * @return The directory, or {@code null} for the default temporary directory of flapdoodle.
+     * @throws IOException if the directory could not be created.
+     */
+    Path createDbPath() throws IOException {
+        if (this == DEFAULT || !Files.isDirectory(SHARED_MEMORY) || !Files.isWritable(SHARED_MEMORY)) {
+            return null;
+        }
+        return Files.createTempDirectory(SHARED_MEMORY, "testy-mongod");
+    }
+}
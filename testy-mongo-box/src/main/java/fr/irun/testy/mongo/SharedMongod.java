@@ -0,0 +1,139 @@
+package fr.irun.testy.mongo;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.IMongodConfig;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A mongod process shared by all the test classes of the JVM.
+ * <p>
+ * Stored in the root {@link org.junit.jupiter.api.extension.ExtensionContext.Store}, it is started by the first test
+ * class and stopped when the root context is closed, after the end of all the tests. Each test class uses its own
+ * database, dropped in background when the class ends. A test class reusing the name of a database waits for its
+ * pending drop before starting.
+ * </p>
+ */
+final class SharedMongod implements CloseableResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMongod.class);
+    private static final long DROP_TIMEOUT_SECONDS = 30;
+
+    private final MongodExecutable mongodExe;
+    private final MongodProcess mongod;
+    private final String host;
+    private final int port;
+    private final Path dbPath;
+    private final MongoClient adminClient;
+    private final Map<CompletableFuture<Void>, String> pendingDrops = new ConcurrentHashMap<>();
+
+    private SharedMongod(MongodExecutable mongodExe, MongodProcess mongod, String host, int port, Path dbPath) {
+        this.mongodExe = mongodExe;
+        this.mongod = mongod;
+        this.host = host;
+        this.port = port;
+        this.dbPath = dbPath;
+        this.adminClient = MongoClients.create(connectionString("admin"));
+    }
+
+    /**
+     * Start the shared mongod.
+     *
+     * @param runtime     The starter of the process.
+     * @param mongoConfig The configuration of the process.
+     * @param profile     The storage profile of the configuration.
+     * @param dbPath      The database directory, deleted after the stop of the process, or {@code null}.
+     * @return The started server.
+     * @throws IOException if the process could not be started.
+     */
+    static SharedMongod start(MongodStarter runtime, IMongodConfig mongoConfig,
+                              MongodProfile profile, Path dbPath) throws IOException {
+        long begin = System.nanoTime();
+        MongodExecutable mongodExe = runtime.prepare(mongoConfig);
+        MongodProcess mongod = mongodExe.start();
+        LOGGER.info("Shared mongod started with profile {} on port {} in {} ms",
+                profile, mongoConfig.net().getPort(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        return new SharedMongod(mongodExe, mongod,
+                mongoConfig.net().getServerAddress().getHostAddress(), mongoConfig.net().getPort(), dbPath);
+    }
+
+    /**
+     * @param databaseName The name of the database.
+     * @return The connection string to the database on the shared server.
+     */
+    String connectionString(String databaseName) {
+        return String.format("mongodb://%s:%d/%s", host, port, databaseName);
+    }
+
+    /**
+     * Drop a database without waiting. The pending drops are awaited before reusing the database and before
+     * stopping the server.
+     *
+     * @param databaseName The name of the database.
+     */
+    void dropAsync(String databaseName) {
+        CompletableFuture<Void> drop = Mono.from(adminClient.getDatabase(databaseName).drop()).then().toFuture();
+        pendingDrops.put(drop, databaseName);
+        drop.whenComplete((ignore, error) -> {
+            pendingDrops.remove(drop);
+            if (error != null) {
+                LOGGER.warn("Unable to drop database {}: {}", databaseName, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Wait for the pending drops of a database, before a test class uses it again.
+     *
+     * @param databaseName The name of the database.
+     */
+    void awaitDrop(String databaseName) {
+        CompletableFuture<?>[] drops = pendingDrops.entrySet().stream()
+                .filter(e -> e.getValue().equals(databaseName))
+                .map(Map.Entry::getKey)
+                .toArray(CompletableFuture<?>[]::new);
+        if (drops.length == 0) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(drops).get(DROP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("Database {} not dropped before being used again: {}", databaseName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            CompletableFuture.allOf(pendingDrops.keySet().toArray(new CompletableFuture<?>[0]))
+                    .get(DROP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("Databases not dropped before stopping the shared mongod: {}", e.getMessage());
+        } finally {
+            adminClient.close();
+            mongod.stop();
+            mongodExe.stop();
+            if (dbPath != null) {
+                de.flapdoodle.embed.process.io.file.Files.forceDelete(dbPath.toFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package fr.irun.testy.mongo;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * Set of documents read on demand to initialize a collection, for the collections too large to be held in memory.
+ * <p>
+ * The publisher is subscribed at each reset of the collection, so it shall be cold and produce the same documents
+ * at each subscription, as {@code Flux.fromStream(Supplier)}. The documents are requested by batches, so a
+ * generator or a file reader never holds the whole collection in memory.
+ * </p>
+ *
+ * @param <T> Type of the elements to insert as documents.
+ */
+@FunctionalInterface
+public interface StreamingMongoDataSet<T> {
+
+    /**
+     * Obtain the documents to insert.
+     *
+     * @return Documents to insert into the collection, produced on demand.
+     */
+    Publisher<T> documents();
+
+    /**
+     * Whether the {@code _id} of the documents is generated by the database at each reset of the collection,
+     * instead of being kept from the documents.
+     *
+     * @return {@code true} to insert new identifiers at each reset.
+     */
+    default boolean generateIds() {
+        return false;
+    }
+}
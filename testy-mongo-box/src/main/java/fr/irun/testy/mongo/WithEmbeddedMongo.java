@@ -1,5 +1,7 @@
 package fr.irun.testy.mongo;
 
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
 import com.mongodb.reactivestreams.client.MongoClients;
 import de.flapdoodle.embed.mongo.Command;
@@ -16,8 +18,12 @@ import de.flapdoodle.embed.process.config.io.ProcessOutput;
 import de.flapdoodle.embed.process.io.Processors;
 import de.flapdoodle.embed.process.io.Slf4jLevel;
 import de.flapdoodle.embed.process.runtime.Network;
+import de.flapdoodle.embed.process.store.IArtifactStore;
 import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.junit.jupiter.api.extension.ExtensionContext.Store;
@@ -31,9 +37,14 @@ import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Parameter;
 import java.net.InetAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -43,11 +54,33 @@ import java.util.concurrent.atomic.AtomicReference;
  * run a database for the test.
  * </p><p>
  * From this database, an async {@link MongoClient} is created and a Spring {@link ReactiveMongoDatabaseFactory} wrap it.
+ * </p><p>
+ * By default, a mongod process is started for each test class and stopped after it. With
+ * {@link WithEmbeddedMongoBuilder#sharedServer(boolean)}, a single mongod is started for the whole JVM by the first
+ * test class using it, and stopped after all the tests. Each test class then works on its own database, dropped in
+ * background at the end of the class.
+ * </p><p>
+ * With {@link WithEmbeddedMongoBuilder#setLocalArtifact(Path)}, the mongod archive is read from a local file or
+ * directory instead of being downloaded. It is extracted once in a cache directory shared by all the processes, and
+ * started from there without copy in a temporary directory.
+ * </p><p>
+ * The storage of mongod is selected by {@link WithEmbeddedMongoBuilder#setProfile(MongodProfile)}. The
+ * {@link MongodProfile#EPHEMERAL} profile keeps the data in memory, the inserts and the drops of the fixtures do not
+ * cost any fsync.
+ * </p><p>
+ * With {@link WithEmbeddedMongoBuilder#recordCommands(boolean)}, the commands sent by each test are recorded in a
+ * {@link MongoCommandStats} which can be injected as parameter.
+ * </p><p>
+ * With {@link WithEmbeddedMongoBuilder#captureQueryPlans(boolean)}, the profiler of the database records the plans of
+ * the operations run by each test in a {@link MongoQueryPlans} which can be injected as parameter. The collection
+ * scans and the in-memory sorts are logged as warnings, and the plans can be written in a baseline file with
+ * {@link WithEmbeddedMongoBuilder#setQueryPlanBaseline(Path)}.
  * </p>
  *
  * @see <a href="https://github.com/flapdoodle-oss/de.flapdoodle.embed.mongo">flapdoodle</a>
  */
-public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, ParameterResolver {
+public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback,
+        BeforeEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(WithEmbeddedMongo.class);
 
     private static final Namespace NAMESPACE = Namespace.create(WithEmbeddedMongo.class);
@@ -58,16 +91,37 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
     private static final String P_MONGO_FACTORY = "reactiveMongoFactory";
     private static final String P_MONGO_TEMPLATE = "reactiveMongoTemplate";
     private static final String P_MONGO_DB_NAME = "mongoDbName";
+    private static final String P_SHARED_MONGOD = "sharedMongod";
+    private static final String P_DB_PATH = "dbPath";
+    private static final String P_WRITE_TRACKER = "writeTracker";
+    private static final String P_COMMAND_RECORDER = "commandRecorder";
+    private static final String P_COMMAND_STATS = "commandStats";
+    private static final String P_QUERY_PLANS = "queryPlans";
+    private static final String P_PLAN_BASELINE = "queryPlanBaseline";
 
     private final String databaseName;
+    private final boolean withSharedServer;
+    private final IArtifactStore artifactStore;
+    private final MongodProfile profile;
+    private final boolean withCommandRecording;
+    private final boolean withQueryPlans;
+    private final Path planBaselineDirectory;
     private final AtomicReference<ReactiveMongoDatabaseFactory> atomicMongoFactory;
 
     public WithEmbeddedMongo() {
-        this(UUID.randomUUID().toString());
+        this(UUID.randomUUID().toString(), false, null, MongodProfile.DEFAULT, false, false, null);
     }
 
-    private WithEmbeddedMongo(String databaseName) {
+    private WithEmbeddedMongo(String databaseName, boolean withSharedServer,
+                              IArtifactStore artifactStore, MongodProfile profile, boolean withCommandRecording,
+                              boolean withQueryPlans, Path planBaselineDirectory) {
         this.databaseName = databaseName;
+        this.withSharedServer = withSharedServer;
+        this.artifactStore = artifactStore;
+        this.profile = profile;
+        this.withCommandRecording = withCommandRecording;
+        this.withQueryPlans = withQueryPlans;
+        this.planBaselineDirectory = planBaselineDirectory;
         this.atomicMongoFactory = new AtomicReference<>();
     }
 
@@ -91,54 +145,180 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
 
     @Override
     public void beforeAll(ExtensionContext context) throws IOException {
-        int freeServerPort = Network.getFreeServerPort(InetAddress.getLoopbackAddress());
-        IMongodConfig mongoConfig = new MongodConfigBuilder()
-                .net(new Net(InetAddress.getLoopbackAddress().getHostAddress(), freeServerPort, false))
-                .version(Version.Main.PRODUCTION)
-                .build();
-
-        IRuntimeConfig runtimeConfig = new RuntimeConfigBuilder()
-                .defaults(Command.MongoD)
-                .processOutput(new ProcessOutput(
-                        Processors.logTo(LOGGER, Slf4jLevel.INFO),
-                        Processors.logTo(LOGGER, Slf4jLevel.ERROR),
-                        Processors.logTo(LOGGER, Slf4jLevel.INFO)))
-                .build();
-
-        MongodStarter runtime = MongodStarter.getInstance(runtimeConfig);
+        if (withSharedServer) {
+            SharedMongod sharedMongod = getSharedMongod(context);
+            sharedMongod.awaitDrop(databaseName);
+            initialize(context, sharedMongod.connectionString(databaseName));
+            return;
+        }
 
-        MongodExecutable mongodExe = runtime.prepare(mongoConfig);
+        long begin = System.nanoTime();
+        Path dbPath = profile.createDbPath();
+        IMongodConfig mongoConfig = mongodConfig(profile, dbPath);
+        MongodExecutable mongodExe = MongodStarter.getInstance(runtimeConfig(artifactStore)).prepare(mongoConfig);
 
-        MongoClient mongo = MongoClients.create(String.format("mongodb://%s:%d/%s",
+        initialize(context, String.format("mongodb://%s:%d/%s",
                 mongoConfig.net().getServerAddress().getHostAddress(),
                 mongoConfig.net().getPort(),
                 databaseName));
 
+        MongodProcess mongod = mongodExe.start();
+        LOGGER.info("mongod started with profile {} in {} ms",
+                profile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+        Store store = getStore(context);
+        store.put(P_MONGO_EXE, mongodExe);
+        store.put(P_MONGOD, mongod);
+        if (dbPath != null) {
+            store.put(P_DB_PATH, dbPath);
+        }
+    }
+
+    private void initialize(ExtensionContext context, String connectionString) {
+        Store store = getStore(context);
+        MongoWriteTracker writeTracker = new MongoWriteTracker(databaseName);
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .addCommandListener(writeTracker);
+        if (withCommandRecording) {
+            MongoCommandRecorder commandRecorder = new MongoCommandRecorder();
+            settings.addCommandListener(commandRecorder);
+            store.put(P_COMMAND_RECORDER, commandRecorder);
+        }
+        MongoClient mongo = MongoClients.create(settings.build());
+
         ReactiveMongoDatabaseFactory mongoFactory = new SimpleReactiveMongoDatabaseFactory(mongo, databaseName);
         if (!this.atomicMongoFactory.compareAndSet(null, mongoFactory)) {
             throw new IllegalStateException("Mongo factory already initialized ! Multiple Mongo factory not supported !");
         }
         ReactiveMongoTemplate mongoTemplate = new ReactiveMongoTemplate(mongoFactory);
 
-        MongodProcess mongod = mongodExe.start();
-
-        Store store = getStore(context);
         store.put(P_MONGO_DB_NAME, databaseName);
-        store.put(P_MONGO_EXE, mongodExe);
-        store.put(P_MONGOD, mongod);
         store.put(P_MONGO_CLIENT, mongo);
         store.put(P_MONGO_FACTORY, mongoFactory);
         store.put(P_MONGO_TEMPLATE, mongoTemplate);
+        store.put(P_WRITE_TRACKER, writeTracker);
+        if (planBaselineDirectory != null) {
+            store.put(P_PLAN_BASELINE, new MongoQueryPlanBaseline(
+                    planBaselineDirectory.resolve(context.getRequiredTestClass().getName() + ".plans")));
+        }
+    }
+
+    /**
+     * @param context The extension context.
+     * @return The tracker of the collections written through the {@link MongoClient} of the test class.
+     */
+    MongoWriteTracker getWriteTracker(ExtensionContext context) {
+        return getStore(context).get(P_WRITE_TRACKER, MongoWriteTracker.class);
+    }
+
+    /**
+     * @return The storage profile of the mongod.
+     */
+    MongodProfile getProfile() {
+        return profile;
+    }
+
+    private static IMongodConfig mongodConfig(MongodProfile profile, Path dbPath) throws IOException {
+        int freeServerPort = Network.getFreeServerPort(InetAddress.getLoopbackAddress());
+        MongodConfigBuilder builder = new MongodConfigBuilder()
+                .net(new Net(InetAddress.getLoopbackAddress().getHostAddress(), freeServerPort, false))
+                .version(Version.Main.PRODUCTION);
+        profile.configure(builder, Version.Main.PRODUCTION, dbPath);
+        return builder.build();
+    }
+
+    private static IRuntimeConfig runtimeConfig(IArtifactStore artifactStore) {
+        RuntimeConfigBuilder builder = new RuntimeConfigBuilder();
+        builder.defaults(Command.MongoD)
+                .processOutput(new ProcessOutput(
+                        Processors.logTo(LOGGER, Slf4jLevel.INFO),
+                        Processors.logTo(LOGGER, Slf4jLevel.ERROR),
+                        Processors.logTo(LOGGER, Slf4jLevel.INFO)));
+        if (artifactStore != null) {
+            builder.artifactStore(artifactStore);
+        }
+        return builder.build();
+    }
+
+    private SharedMongod getSharedMongod(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(P_SHARED_MONGOD, key -> {
+            try {
+                Path dbPath = profile.createDbPath();
+                return SharedMongod.start(MongodStarter.getInstance(runtimeConfig(artifactStore)),
+                        mongodConfig(profile, dbPath), profile, dbPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start the shared mongod", e);
+            }
+        }, SharedMongod.class);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        MongoCommandRecorder commandRecorder = getStore(context).get(P_COMMAND_RECORDER, MongoCommandRecorder.class);
+        if (commandRecorder != null) {
+            getStore(context).put(P_COMMAND_STATS, commandRecorder.reset());
+        }
+        if (withQueryPlans) {
+            MongoClient mongo = getStore(context).get(P_MONGO_CLIENT, MongoClient.class);
+            getStore(context).put(P_QUERY_PLANS, new MongoQueryPlans(mongo.getDatabase(databaseName)));
+        }
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        MongoCommandRecorder commandRecorder = getStore(context).get(P_COMMAND_RECORDER, MongoCommandRecorder.class);
+        if (commandRecorder != null) {
+            commandRecorder.start();
+        }
+        MongoQueryPlans queryPlans = getStore(context).get(P_QUERY_PLANS, MongoQueryPlans.class);
+        if (queryPlans != null) {
+            queryPlans.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        MongoCommandRecorder commandRecorder = getStore(context).get(P_COMMAND_RECORDER, MongoCommandRecorder.class);
+        if (commandRecorder != null) {
+            commandRecorder.stop();
+            LOGGER.debug("{}: {}", context.getDisplayName(), getStore(context).get(P_COMMAND_STATS));
+        }
+        MongoQueryPlans queryPlans = getStore(context).get(P_QUERY_PLANS, MongoQueryPlans.class);
+        if (queryPlans != null) {
+            queryPlans.stop();
+            List<MongoQueryPlans.QueryPlan> plans = queryPlans.plans();
+            plans.stream()
+                    .filter(plan -> plan.isCollectionScan() || plan.hasInMemorySort())
+                    .forEach(plan -> LOGGER.warn("{}: {}", context.getDisplayName(), plan));
+            MongoQueryPlanBaseline baseline = getStore(context).get(P_PLAN_BASELINE, MongoQueryPlanBaseline.class);
+            if (baseline != null) {
+                baseline.record(context.getRequiredTestMethod().getName(), plans);
+            }
+        }
     }
 
     @Override
     public void afterAll(ExtensionContext context) {
         Store store = getStore(context);
+        MongoQueryPlanBaseline baseline = store.get(P_PLAN_BASELINE, MongoQueryPlanBaseline.class);
+        if (baseline != null) {
+            baseline.write();
+        }
+
         MongoClient mongo = store.get(P_MONGO_CLIENT, MongoClient.class);
         if (mongo != null) {
             mongo.close();
         }
 
+        if (withSharedServer) {
+            SharedMongod sharedMongod = context.getRoot().getStore(NAMESPACE).get(P_SHARED_MONGOD, SharedMongod.class);
+            if (sharedMongod != null && store.get(P_MONGO_DB_NAME) != null) {
+                sharedMongod.dropAsync(databaseName);
+            }
+            return;
+        }
+
         MongodProcess mongod = store.get(P_MONGOD, MongodProcess.class);
         if (mongod != null) {
             mongod.stop();
@@ -148,6 +328,11 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
         if (mongodExe != null) {
             mongodExe.stop();
         }
+
+        Path dbPath = store.get(P_DB_PATH, Path.class);
+        if (dbPath != null) {
+            de.flapdoodle.embed.process.io.file.Files.forceDelete(dbPath.toFile());
+        }
     }
 
     @Override
@@ -157,6 +342,8 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
         return MongoClient.class.equals(type)
                 || ReactiveMongoDatabaseFactory.class.equals(type)
                 || ReactiveMongoTemplate.class.equals(type)
+                || (MongoCommandStats.class.equals(type) && withCommandRecording)
+                || (MongoQueryPlans.class.equals(type) && withQueryPlans)
                 || (String.class.equals(type) && parameter.isAnnotationPresent(MongoDatabaseName.class));
     }
 
@@ -170,6 +357,10 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
             return getStore(extensionContext).get(P_MONGO_FACTORY);
         } else if (ReactiveMongoTemplate.class.equals(type)) {
             return getStore(extensionContext).get(P_MONGO_TEMPLATE);
+        } else if (MongoCommandStats.class.equals(type)) {
+            return getStore(extensionContext).get(P_COMMAND_STATS);
+        } else if (MongoQueryPlans.class.equals(type)) {
+            return getStore(extensionContext).get(P_QUERY_PLANS);
         } else if (type.equals(String.class) && parameter.isAnnotationPresent(MongoDatabaseName.class)) {
             return getStore(extensionContext).get(P_MONGO_DB_NAME);
         }
@@ -187,14 +378,125 @@ public class WithEmbeddedMongo implements BeforeAllCallback, AfterAllCallback, P
 
     public static final class WithEmbeddedMongoBuilder {
         private String databaseName = UUID.randomUUID().toString();
+        private boolean withSharedServer = false;
+        private Path localArtifact;
+        private Path extractedCache = Paths.get(System.getProperty("java.io.tmpdir"), "testy-mongod");
+        private MongodProfile profile = MongodProfile.DEFAULT;
+        private boolean withCommandRecording = false;
+        private boolean withQueryPlans = false;
+        private Path planBaselineDirectory;
 
         public WithEmbeddedMongoBuilder setDatabaseName(String databaseName) {
             this.databaseName = databaseName;
             return this;
         }
 
+        /**
+         * Use a mongod shared by all the test classes of the JVM, instead of a mongod by test class.
+         * <p>
+         * The database is dropped in background at the end of the test class. A following test class with the same
+         * database name waits for the drop before starting. When the test classes run concurrently, each one shall
+         * use a distinct database name, which is the case of the default random name.
+         * </p>
+         *
+         * @param withSharedServer {@code true} to share the mongod.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder sharedServer(boolean withSharedServer) {
+            this.withSharedServer = withSharedServer;
+            return this;
+        }
+
+        /**
+         * Read the mongod archive from a local file or directory, instead of downloading it.
+         * <p>
+         * The path is either the archive of the distribution, or a directory containing it, flat or laid out as the
+         * flapdoodle download directory {@code ~/.embedmongo}. When a file {@code <archive>.sha256} exists next to
+         * the archive, the archive is checked against it before the extraction.
+         * </p>
+         *
+         * @param localArtifact The archive or the directory of archives.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder setLocalArtifact(Path localArtifact) {
+            this.localArtifact = localArtifact;
+            return this;
+        }
+
+        /**
+         * Set the directory in which the local artifact is extracted, once for all the processes. By default,
+         * {@code testy-mongod} in the temporary directory.
+         *
+         * @param extractedCache The directory of the extracted binaries.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder setExtractedCache(Path extractedCache) {
+            this.extractedCache = extractedCache;
+            return this;
+        }
+
+        /**
+         * Select the storage settings of mongod. By default, {@link MongodProfile#DEFAULT}.
+         * <p>
+         * With a shared server, the profile of the first test class starting the mongod is used.
+         * </p>
+         *
+         * @param profile The storage profile.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder setProfile(MongodProfile profile) {
+            this.profile = profile;
+            return this;
+        }
+
+        /**
+         * Record the commands sent by each test in a {@link MongoCommandStats} injectable as parameter.
+         *
+         * @param withCommandRecording {@code true} to record the commands.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder recordCommands(boolean withCommandRecording) {
+            this.withCommandRecording = withCommandRecording;
+            return this;
+        }
+
+        /**
+         * Capture the plans of the operations run by each test in a {@link MongoQueryPlans} injectable as parameter.
+         * <p>
+         * The profiler of the database is enabled during the execution of each test method, which slows down the
+         * operations.
+         * </p>
+         *
+         * @param withQueryPlans {@code true} to capture the query plans.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder captureQueryPlans(boolean withQueryPlans) {
+            this.withQueryPlans = withQueryPlans;
+            return this;
+        }
+
+        /**
+         * Write the query plans of each test class in {@code <directory>/<test class>.plans}, to diff them between
+         * two versions of the code. Enable the capture of the query plans.
+         * <p>
+         * The file is rewritten at the end of the test class, and the plans changed since its previous content are
+         * logged as warnings.
+         * </p>
+         *
+         * @param planBaselineDirectory The directory of the baseline files, as {@code src/test/resources/query-plans}.
+         * @return The current builder
+         */
+        public WithEmbeddedMongoBuilder setQueryPlanBaseline(Path planBaselineDirectory) {
+            this.planBaselineDirectory = planBaselineDirectory;
+            this.withQueryPlans = true;
+            return this;
+        }
+
         public WithEmbeddedMongo build() {
-            return new WithEmbeddedMongo(databaseName);
+            IArtifactStore artifactStore = (localArtifact == null) ? null
+                    : new MongodArtifactCache(localArtifact, extractedCache);
+            return new WithEmbeddedMongo(databaseName, withSharedServer, artifactStore, profile, withCommandRecording,
+                    withQueryPlans, planBaselineDirectory);
         }
     }
 }
@@ -1,20 +1,35 @@
 package fr.irun.testy.mongo;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
 import fr.irun.testy.core.extensions.WithObjectMapper;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Extension allowing to initialize a mongo database with data.
@@ -78,49 +93,181 @@ import java.util.stream.Collectors;
  *     // (...)
  * }
  * </pre>
+ * <p>
+ * The collections are reset concurrently, at most {@link #DEFAULT_CONCURRENCY} at a time unless changed by
+ * {@link WithMongoDataBuilder#setConcurrency(int)}.
+ * </p><p>
+ * Only the collections written since the previous reset are reset, the writes being tracked on the commands sent by
+ * the {@link com.mongodb.reactivestreams.client.MongoClient} of {@link WithEmbeddedMongo}. The documents are removed
+ * from the collections instead of dropping them, so the indexes are kept. The writes done by another client are not
+ * tracked, {@link WithMongoDataBuilder#trackWrites(boolean)} allows to reset all the collections before each test.
+ * Several extensions can share the same {@link WithEmbeddedMongo}, each one resetting the collections written since
+ * its own previous reset.
+ * </p><p>
+ * The documents of the data sets are converted and encoded in BSON once, before all the tests of the class. Each
+ * reset inserts the same encoded documents.
+ * </p><p>
+ * The collections too large to be held in memory are filled from a {@link StreamingMongoDataSet}. Its documents are
+ * read on demand at each reset, and inserted by unordered batches of {@link #DEFAULT_BATCH_SIZE} documents, at most
+ * {@link #DEFAULT_MAX_BATCHES_IN_FLIGHT} batches at a time.
+ * </p>
  */
-public final class WithMongoData implements BeforeEachCallback {
+public final class WithMongoData implements BeforeAllCallback, BeforeEachCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WithMongoData.class);
+    private static final String P_DOCUMENTS = "documents";
+    private static final String P_RESET_GENERATION = "resetGeneration";
+
+    /**
+     * Default count of collections reset at the same time.
+     */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /**
+     * Default count of documents inserted by batch from a {@link StreamingMongoDataSet}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    /**
+     * Default count of batches inserted at the same time in a collection from a {@link StreamingMongoDataSet}.
+     */
+    public static final int DEFAULT_MAX_BATCHES_IN_FLIGHT = 4;
+
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
 
     private final WithEmbeddedMongo wEmbeddedMongo;
     @Nullable
     private final WithObjectMapper wObjectMapper;
     private final Map<String, MongoDataSet<?>> dataSets;
+    private final Map<String, StreamingMongoDataSet<?>> streamingDataSets;
+    private final Set<String> collections;
+    private final int concurrency;
+    private final boolean withWriteTracking;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
 
     private WithMongoData(WithEmbeddedMongo wEmbeddedMongo,
-                          Map<String, MongoDataSet<?>> dataSets) {
-        this.wEmbeddedMongo = wEmbeddedMongo;
-        this.wObjectMapper = null;
-        this.dataSets = dataSets;
-    }
-
-    private WithMongoData(WithEmbeddedMongo wEmbeddedMongo,
-                          @Nonnull WithObjectMapper wObjectMapper,
-                          Map<String, MongoDataSet<?>> dataSets) {
+                          @Nullable WithObjectMapper wObjectMapper,
+                          Map<String, MongoDataSet<?>> dataSets,
+                          Map<String, StreamingMongoDataSet<?>> streamingDataSets,
+                          int concurrency,
+                          boolean withWriteTracking,
+                          int batchSize,
+                          int maxBatchesInFlight) {
         this.wEmbeddedMongo = wEmbeddedMongo;
         this.wObjectMapper = wObjectMapper;
         this.dataSets = dataSets;
+        this.streamingDataSets = streamingDataSets;
+        this.collections = ImmutableSet.<String>builder()
+                .addAll(dataSets.keySet())
+                .addAll(streamingDataSets.keySet())
+                .build();
+        this.concurrency = concurrency;
+        this.withWriteTracking = withWriteTracking;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
     }
 
 
     @Override
+    public void beforeAll(ExtensionContext context) {
+        Store store = getStore(context);
+        if (store.get(P_DOCUMENTS) != null) {
+            // Nested test class, the documents were encoded by this extension for the enclosing class
+            return;
+        }
+        store.put(P_DOCUMENTS, encodeDataSets(context));
+        store.put(P_RESET_GENERATION, new AtomicLong(-1));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
     public void beforeEach(ExtensionContext context) {
-        final ObjectMapper objectMapper = Optional.ofNullable(this.wObjectMapper)
-                .map(wom -> wom.getObjectMapper(context))
-                .orElseGet(ObjectMapper::new);
+        final Map<String, List<RawBsonDocument>> documents = Optional.ofNullable(
+                (Map<String, List<RawBsonDocument>>) getStore(context).get(P_DOCUMENTS, Map.class))
+                .orElseGet(() -> encodeDataSets(context));
         final ReactiveMongoTemplate mongoTemplate = this.wEmbeddedMongo.getMongoTemplate(context);
+        final ObjectMapper objectMapper = getObjectMapper(context);
+
+        final MongoWriteTracker writeTracker = this.wEmbeddedMongo.getWriteTracker(context);
+        final AtomicLong resetGeneration = getStore(context).get(P_RESET_GENERATION, AtomicLong.class);
+        final Set<String> toReset = (withWriteTracking && writeTracker != null && resetGeneration != null)
+                ? writeTracker.written(collections, resetGeneration.get())
+                : collections;
+
+        long begin = System.nanoTime();
+        Flux.fromIterable(toReset)
+                .flatMap(collection -> mongoTemplate.remove(new Query(), collection)
+                                .then(documents.containsKey(collection)
+                                        ? fillCollection(mongoTemplate, collection, documents.get(collection))
+                                        : streamCollection(mongoTemplate, objectMapper, collection, streamingDataSets.get(collection))),
+                        concurrency)
+                .then()
+                .block();
+        if (writeTracker != null && resetGeneration != null) {
+            resetGeneration.set(writeTracker.generation());
+        }
+        LOGGER.debug("{} of {} collections loaded with profile {} in {} ms", toReset.size(), collections.size(),
+                wEmbeddedMongo.getProfile(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
 
-        dataSets.forEach((collection, dataSet) -> {
-            mongoTemplate.dropCollection(collection).block();
-            fillCollection(mongoTemplate, objectMapper, collection, dataSet);
+    private Mono<Void> fillCollection(ReactiveMongoTemplate mongoDb, String collectionName, List<RawBsonDocument> documents) {
+        if (documents.isEmpty()) {
+            return Mono.empty();
+        }
+        return mongoDb.getCollection(collectionName)
+                .flatMap(collection -> Mono.from(collection.withDocumentClass(RawBsonDocument.class).insertMany(documents)))
+                .then();
+    }
+
+    private Mono<Void> streamCollection(ReactiveMongoTemplate mongoDb, ObjectMapper objectMapper,
+                                        String collectionName, StreamingMongoDataSet<?> dataSet) {
+        return mongoDb.getMongoDatabase().flatMap(database -> {
+            final Codec<Document> codec = database.getCodecRegistry().get(Document.class);
+            final MongoCollection<RawBsonDocument> collection = database.getCollection(collectionName, RawBsonDocument.class);
+            return Flux.from(dataSet.documents())
+                    .map(o -> encode(objectMapper, codec, o, dataSet.generateIds()))
+                    .buffer(batchSize)
+                    .flatMap(batch -> collection.insertMany(batch, UNORDERED), maxBatchesInFlight)
+                    .then();
         });
     }
 
-    private void fillCollection(ReactiveMongoTemplate mongoDb, ObjectMapper objectMapper, String collectionName, MongoDataSet<?> dataSet) {
-        final List<Document> toInsert = dataSet.documents().stream()
-                .map(o -> objectMapper.convertValue(o, Document.class))
-                .collect(Collectors.toList());
+    private Map<String, List<RawBsonDocument>> encodeDataSets(ExtensionContext context) {
+        final ObjectMapper objectMapper = getObjectMapper(context);
+        final ReactiveMongoTemplate mongoTemplate = this.wEmbeddedMongo.getMongoTemplate(context);
+        final Codec<Document> codec = mongoTemplate.getMongoDatabase()
+                .map(MongoDatabase::getCodecRegistry)
+                .map(registry -> registry.get(Document.class))
+                .block();
 
-        mongoDb.insertAll(Mono.just(toInsert), collectionName).blockLast();
+        final ImmutableMap.Builder<String, List<RawBsonDocument>> documents = ImmutableMap.builder();
+        dataSets.forEach((collection, dataSet) -> documents.put(collection, dataSet.documents().stream()
+                .map(o -> encode(objectMapper, codec, o, dataSet.generateIds()))
+                .collect(ImmutableList.toImmutableList())));
+        return documents.build();
+    }
+
+    private static RawBsonDocument encode(ObjectMapper objectMapper, Codec<Document> codec, Object o, boolean generateId) {
+        if (o instanceof RawBsonDocument && !generateId) {
+            // Already encoded, as read from a BSON dump
+            return (RawBsonDocument) o;
+        }
+        Document document = objectMapper.convertValue(o, Document.class);
+        if (generateId) {
+            document.remove("_id");
+        }
+        return new RawBsonDocument(document, codec);
+    }
+
+    private ObjectMapper getObjectMapper(ExtensionContext context) {
+        return Optional.ofNullable(this.wObjectMapper)
+                .map(wom -> wom.getObjectMapper(context))
+                .orElseGet(ObjectMapper::new);
+    }
+
+    private Store getStore(ExtensionContext context) {
+        // One namespace by instance, for the classes registering several extensions
+        return context.getStore(Namespace.create(getClass().getName(), this));
     }
 
     /**
@@ -142,6 +289,11 @@ public final class WithMongoData implements BeforeEachCallback {
         @Nullable
         private WithObjectMapper wObjectMapper;
         private final ImmutableMap.Builder<String, MongoDataSet<?>> dataSetsBuilder = ImmutableMap.builder();
+        private final ImmutableMap.Builder<String, StreamingMongoDataSet<?>> streamingDataSetsBuilder = ImmutableMap.builder();
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private boolean withWriteTracking = true;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private int maxBatchesInFlight = DEFAULT_MAX_BATCHES_IN_FLIGHT;
 
         private WithMongoDataBuilder(WithEmbeddedMongo wEmbeddedMongo) {
             this.wEmbeddedMongo = wEmbeddedMongo;
@@ -170,15 +322,87 @@ public final class WithMongoData implements BeforeEachCallback {
             return this;
         }
 
+        /**
+         * Add a data set read on demand, for the collections too large to be held in memory.
+         *
+         * @param collectionName Name of the collection the data-set will fill.
+         * @param dataSet        Set of data to initialize the collection with.
+         * @return Builder instance.
+         */
+        public WithMongoDataBuilder addStreamingDataset(String collectionName, StreamingMongoDataSet<?> dataSet) {
+            this.streamingDataSetsBuilder.put(collectionName, dataSet);
+            return this;
+        }
+
+        /**
+         * Set the count of documents inserted by batch from the streaming data sets. By default,
+         * {@link WithMongoData#DEFAULT_BATCH_SIZE}.
+         *
+         * @param batchSize The count of documents by {@code insertMany}.
+         * @return Builder instance.
+         */
+        public WithMongoDataBuilder setBatchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("The batch size must be positive !");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum count of batches inserted at the same time in a collection from a streaming data set. By
+         * default, {@link WithMongoData#DEFAULT_MAX_BATCHES_IN_FLIGHT}. The documents held in memory are bounded by
+         * the batch size times this count.
+         *
+         * @param maxBatchesInFlight The count of concurrent {@code insertMany}.
+         * @return Builder instance.
+         */
+        public WithMongoDataBuilder setMaxBatchesInFlight(int maxBatchesInFlight) {
+            if (maxBatchesInFlight < 1) {
+                throw new IllegalArgumentException("The count of batches in flight must be positive !");
+            }
+            this.maxBatchesInFlight = maxBatchesInFlight;
+            return this;
+        }
+
+        /**
+         * Set the maximum count of collections reset at the same time. By default, {@link WithMongoData#DEFAULT_CONCURRENCY}.
+         *
+         * @param concurrency The count of collections, 1 to reset them one after the other.
+         * @return Builder instance.
+         */
+        public WithMongoDataBuilder setConcurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("The concurrency must be positive !");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Reset only the collections written since the previous reset. By default, {@code true}.
+         * <p>
+         * Disable the tracking when the tests write the collections with another client than the one of
+         * {@link WithEmbeddedMongo}.
+         * </p>
+         *
+         * @param withWriteTracking {@code false} to reset all the collections before each test.
+         * @return Builder instance.
+         */
+        public WithMongoDataBuilder trackWrites(boolean withWriteTracking) {
+            this.withWriteTracking = withWriteTracking;
+            return this;
+        }
+
         /**
          * Build the extension.
          *
          * @return The built {@link WithMongoData} extension.
          */
         public WithMongoData build() {
-            return Optional.ofNullable(wObjectMapper)
-                    .map(wom -> new WithMongoData(wEmbeddedMongo, wom, dataSetsBuilder.build()))
-                    .orElseGet(() -> new WithMongoData(wEmbeddedMongo, dataSetsBuilder.build()));
+            return new WithMongoData(wEmbeddedMongo, wObjectMapper,
+                    dataSetsBuilder.build(), streamingDataSetsBuilder.build(),
+                    concurrency, withWriteTracking, batchSize, maxBatchesInFlight);
         }
     }
 }
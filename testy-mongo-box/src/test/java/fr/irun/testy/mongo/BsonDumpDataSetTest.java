@@ -0,0 +1,73 @@
+package fr.irun.testy.mongo;
+
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BsonDumpDataSetTest {
+
+    private static final List<RawBsonDocument> DOCUMENTS = IntStream.range(0, 100)
+            .mapToObj(i -> RawBsonDocument.parse("{_id: " + i + ", name: 'CT-" + i + "'}"))
+            .collect(Collectors.toList());
+
+    @TempDir
+    Path temp;
+
+    private Path dump;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dump = temp.resolve("clones.bson");
+        try (OutputStream out = Files.newOutputStream(dump)) {
+            for (RawBsonDocument document : DOCUMENTS) {
+                ByteBuffer buffer = document.getByteBuffer().asNIO();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                out.write(bytes);
+            }
+        }
+    }
+
+    @Test
+    void should_read_documents_of_dump() {
+        List<RawBsonDocument> actual = Flux.from(BsonDumpDataSet.fromFile(dump).documents())
+                .collectList()
+                .block();
+
+        assertThat(actual).containsExactlyElementsOf(DOCUMENTS);
+    }
+
+    @Test
+    void should_read_documents_across_mapped_regions() {
+        List<RawBsonDocument> actual = Flux.from(new BsonDumpDataSet(dump, 100).documents())
+                .collectList()
+                .block();
+
+        assertThat(actual).containsExactlyElementsOf(DOCUMENTS);
+    }
+
+    @Test
+    void should_fail_on_truncated_dump() throws IOException {
+        byte[] bytes = Files.readAllBytes(dump);
+        Files.write(dump, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> Flux.from(BsonDumpDataSet.fromFile(dump).documents()).blockLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Invalid BSON document");
+    }
+}
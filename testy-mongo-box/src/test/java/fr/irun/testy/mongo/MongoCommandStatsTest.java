@@ -0,0 +1,77 @@
+package fr.irun.testy.mongo;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoCommandStatsTest {
+
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private MongoCommandRecorder recorder;
+    private MongoCommandStats tested;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new MongoCommandRecorder();
+        tested = recorder.reset();
+    }
+
+    @Test
+    void should_record_commands_only_when_started() {
+        execute("find", "{find: 'jedi'}", "{cursor: {id: 0, firstBatch: [{}, {}]}, ok: 1}", 1_000_000);
+        assertThat(tested.commands()).isZero();
+
+        recorder.start();
+        execute("find", "{find: 'jedi'}", "{cursor: {id: 42, firstBatch: [{}, {}, {}]}, ok: 1}", 1_000_000);
+        execute("getMore", "{getMore: 42, collection: 'jedi'}", "{cursor: {id: 42, nextBatch: [{}]}, ok: 1}", 2_000_000);
+        execute("getMore", "{getMore: 42, collection: 'jedi'}", "{cursor: {id: 0, nextBatch: []}, ok: 1}", 3_000_000);
+        recorder.stop();
+        execute("find", "{find: 'jedi'}", "{cursor: {id: 0, firstBatch: []}, ok: 1}", 1_000_000);
+
+        assertThat(tested.commands()).isEqualTo(3);
+        assertThat(tested.commands("find")).isEqualTo(1);
+        assertThat(tested.commandsByName()).containsEntry("getMore", 2L);
+        assertThat(tested.documentsReturned()).isEqualTo(4);
+        assertThat(tested.bytesSent()).isPositive();
+        assertThat(tested.bytesReceived()).isPositive();
+        assertThat(tested.p50()).isEqualTo(Duration.ofMillis(2));
+        assertThat(tested.percentile(100)).isEqualTo(Duration.ofMillis(3));
+    }
+
+    @Test
+    void should_check_chatty_cursors() {
+        recorder.start();
+        execute("find", "{find: 'jedi', batchSize: 2}", "{cursor: {id: 42, firstBatch: [{}, {}]}, ok: 1}", 1_000);
+        execute("getMore", "{getMore: 42, collection: 'jedi'}", "{cursor: {id: 42, nextBatch: [{}, {}]}, ok: 1}", 1_000);
+        execute("getMore", "{getMore: 42, collection: 'jedi'}", "{cursor: {id: 0, nextBatch: [{}]}, ok: 1}", 1_000);
+
+        tested.assertMaxCommands("find", 1);
+        tested.assertMinBatchSize(2);
+        assertThatThrownBy(() -> tested.assertMinBatchSize(100))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("returned 2 documents");
+        assertThatThrownBy(() -> tested.assertMaxGetMores(1))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("Expected at most 1 getMore commands but 2 were sent");
+        assertThatThrownBy(() -> tested.assertMaxCommands(2))
+                .isInstanceOf(AssertionError.class);
+    }
+
+    private void execute(String commandName, String command, String response, long nanos) {
+        recorder.commandStarted(new CommandStartedEvent(1, CONNECTION, "dummy", commandName, BsonDocument.parse(command)));
+        recorder.commandSucceeded(new CommandSucceededEvent(1, CONNECTION, commandName, BsonDocument.parse(response), nanos));
+    }
+}
@@ -0,0 +1,97 @@
+package fr.irun.testy.mongo;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoQueryPlansTest {
+
+    @Test
+    void should_summarize_collection_scan() {
+        MongoQueryPlans.QueryPlan tested = plan("{op: 'query', ns: 'db.jedi', " +
+                "command: {find: 'jedi', filter: {name: 'Obiwan', age: {$in: [42, 57]}}, sort: {age: 1}, $db: 'db'}, " +
+                "keysExamined: 0, docsExamined: 120, hasSortStage: true, nreturned: 2, planSummary: 'COLLSCAN'}");
+
+        assertThat(tested.operation()).isEqualTo("find");
+        assertThat(tested.collection()).isEqualTo("jedi");
+        assertThat(tested.shape()).isEqualTo("{filter: {name: ?, age: {$in: [?]}}, sort: {age: ?}}");
+        assertThat(tested.isCollectionScan()).isTrue();
+        assertThat(tested.hasInMemorySort()).isTrue();
+        assertThat(tested.docsExamined()).isEqualTo(120);
+        assertThat(tested.returned()).isEqualTo(2);
+        assertThat(tested).hasToString("find jedi {filter: {name: ?, age: {$in: [?]}}, sort: {age: ?}}: " +
+                "COLLSCAN + SORT, keys=0 docs=120 returned=2");
+    }
+
+    @Test
+    void should_compute_keys_examined_ratio() {
+        MongoQueryPlans.QueryPlan update = plan("{op: 'update', ns: 'db.jedi', " +
+                "command: {q: {age: {$gt: 40}}, u: {$set: {master: true}}}, " +
+                "keysExamined: 30, docsExamined: 30, nMatched: 3, nModified: 3, planSummary: 'IXSCAN { age: 1 }'}");
+        MongoQueryPlans.QueryPlan aggregate = plan("{op: 'command', ns: 'db.jedi', " +
+                "command: {aggregate: 'jedi', pipeline: [{$match: {age: {$gt: 40}}}, {$sort: {age: -1}}]}, " +
+                "keysExamined: 4, docsExamined: 4, nreturned: 0, planSummary: 'IXSCAN { age: 1 }'}");
+
+        assertThat(update.operation()).isEqualTo("update");
+        assertThat(update.isCollectionScan()).isFalse();
+        assertThat(update.keysExaminedRatio()).isEqualTo(10);
+        assertThat(aggregate.hasInMemorySort()).isFalse();
+        assertThat(aggregate.keysExaminedRatio()).isEqualTo(4);
+    }
+
+    @Test
+    void should_detect_aggregation_sort_without_index() {
+        assertThat(aggregate("[{$match: {name: 'Obiwan'}}, {$sort: {name: 1}}]", "IXSCAN { name: 1 }")
+                .hasInMemorySort()).isFalse();
+        assertThat(aggregate("[{$sort: {side: -1, name: -1}}]", "IXSCAN { side: 1, name: 1 }")
+                .hasInMemorySort()).isFalse();
+        assertThat(aggregate("[{$match: {side: 'LIGHT'}}, {$sort: {name: 1}}]", "IXSCAN { side: 1, name: 1 }")
+                .hasInMemorySort()).isFalse();
+
+        assertThat(aggregate("[{$match: {name: 'Obiwan'}}, {$sort: {age: 1}}]", "IXSCAN { name: 1 }")
+                .hasInMemorySort()).isTrue();
+        assertThat(aggregate("[{$match: {age: 42}}, {$sort: {name: 1}}]", "COLLSCAN")
+                .hasInMemorySort()).isTrue();
+        assertThat(aggregate("[{$sort: {side: 1, name: -1}}]", "IXSCAN { side: 1, name: 1 }")
+                .hasInMemorySort()).isTrue();
+        assertThat(aggregate("[{$match: {side: {$in: ['LIGHT', 'DARK']}}}, {$sort: {name: 1}}]", "IXSCAN { side: 1, name: 1 }")
+                .hasInMemorySort()).isTrue();
+        assertThat(aggregate("[{$group: {_id: '$name'}}, {$sort: {_id: 1}}]", "IXSCAN { name: 1 }")
+                .hasInMemorySort()).isTrue();
+    }
+
+    @Test
+    void should_diff_baseline(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("plans").resolve("JediRepositoryTest.plans");
+        MongoQueryPlanBaseline first = new MongoQueryPlanBaseline(file);
+        first.record("should_find", Collections.singletonList(plan("{op: 'query', ns: 'db.jedi', " +
+                "command: {find: 'jedi', filter: {name: 'Obiwan'}}, nreturned: 1, planSummary: 'IXSCAN { name: 1 }'}")));
+        assertThat(first.write()).isEmpty();
+
+        MongoQueryPlanBaseline second = new MongoQueryPlanBaseline(file);
+        second.record("should_find", Collections.singletonList(plan("{op: 'query', ns: 'db.jedi', " +
+                "command: {find: 'jedi', filter: {name: 'Obiwan'}}, nreturned: 1, planSummary: 'COLLSCAN'}")));
+
+        assertThat(second.write()).containsExactly(
+                "- should_find | find jedi {filter: {name: ?}}: IXSCAN { name: 1 }, keys=0 docs=0 returned=1",
+                "+ should_find | find jedi {filter: {name: ?}}: COLLSCAN, keys=0 docs=0 returned=1");
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).containsExactly(
+                "should_find | find jedi {filter: {name: ?}}: COLLSCAN, keys=0 docs=0 returned=1");
+    }
+
+    private static MongoQueryPlans.QueryPlan aggregate(String pipeline, String planSummary) {
+        return plan("{op: 'command', ns: 'db.jedi', command: {aggregate: 'jedi', pipeline: " + pipeline + "}, " +
+                "keysExamined: 1, docsExamined: 1, nreturned: 1, planSummary: '" + planSummary + "'}");
+    }
+
+    private static MongoQueryPlans.QueryPlan plan(String profile) {
+        return new MongoQueryPlans.QueryPlan(BsonDocument.parse(profile));
+    }
+}
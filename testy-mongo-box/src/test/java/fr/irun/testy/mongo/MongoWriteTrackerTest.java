@@ -0,0 +1,74 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableList;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoWriteTrackerTest {
+
+    private static final String DATABASE = "dummy";
+    private static final List<String> COLLECTIONS = ImmutableList.of("jedi", "sith", "droid");
+
+    private MongoWriteTracker tested;
+
+    @BeforeEach
+    void setUp() {
+        tested = new MongoWriteTracker(DATABASE);
+    }
+
+    @Test
+    void should_consider_all_collections_written_before_first_reset() {
+        assertThat(tested.written(COLLECTIONS, -1)).containsExactlyInAnyOrderElementsOf(COLLECTIONS);
+        assertThat(tested.written(COLLECTIONS, tested.generation())).isEmpty();
+    }
+
+    @Test
+    void should_track_written_collections() {
+        long since = tested.generation();
+
+        tested.commandStarted(command(DATABASE, "find", "{find: 'droid', filter: {}}"));
+        tested.commandStarted(command(DATABASE, "insert", "{insert: 'jedi', documents: []}"));
+        tested.commandStarted(command(DATABASE, "findAndModify", "{findAndModify: 'sith', query: {}}"));
+        tested.commandStarted(command("other", "delete", "{delete: 'droid', deletes: []}"));
+
+        assertThat(tested.written(COLLECTIONS, since)).containsExactlyInAnyOrder("jedi", "sith");
+    }
+
+    @Test
+    void should_track_written_collections_for_each_reset_generation() {
+        long first = tested.generation();
+        tested.commandStarted(command(DATABASE, "insert", "{insert: 'jedi', documents: []}"));
+        long second = tested.generation();
+        tested.commandStarted(command(DATABASE, "delete", "{delete: 'sith', deletes: []}"));
+
+        assertThat(tested.written(COLLECTIONS, first)).containsExactlyInAnyOrder("jedi", "sith");
+        assertThat(tested.written(COLLECTIONS, second)).containsExactly("sith");
+        assertThat(tested.written(COLLECTIONS, -1)).containsExactlyInAnyOrderElementsOf(COLLECTIONS);
+    }
+
+    @Test
+    void should_consider_all_collections_written_by_aggregation_output() {
+        long since = tested.generation();
+
+        tested.commandStarted(command(DATABASE, "aggregate", "{aggregate: 'jedi', pipeline: [{$match: {}}]}"));
+        assertThat(tested.written(COLLECTIONS, since)).isEmpty();
+
+        tested.commandStarted(command(DATABASE, "aggregate", "{aggregate: 'jedi', pipeline: [{$out: 'padawan'}]}"));
+        assertThat(tested.written(COLLECTIONS, since)).containsExactlyInAnyOrderElementsOf(COLLECTIONS);
+    }
+
+    private static CommandStartedEvent command(String database, String commandName, String command) {
+        ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+        return new CommandStartedEvent(1, connection, database, commandName, BsonDocument.parse(command));
+    }
+}
@@ -0,0 +1,94 @@
+package fr.irun.testy.mongo;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.IExtractedFileSet;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongodArtifactCacheTest {
+
+    private static final byte[] MONGOD = "#!/bin/sh\necho mongod\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Distribution distribution = Distribution.detectFor(Version.Main.PRODUCTION);
+
+    @TempDir
+    Path temp;
+
+    private Path archive;
+    private Path cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String path = new de.flapdoodle.embed.mongo.Paths(Command.MongoD).getPath(distribution);
+        archive = temp.resolve("artifacts").resolve(path);
+        Files.createDirectories(archive.getParent());
+        cache = temp.resolve("cache");
+
+        String root = archive.getFileName().toString().replace(".tgz", "");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+            TarArchiveEntry entry = new TarArchiveEntry(root + "/bin/mongod");
+            entry.setSize(MONGOD.length);
+            entry.setMode(0755);
+            tar.putArchiveEntry(entry);
+            tar.write(MONGOD);
+            tar.closeArchiveEntry();
+        }
+    }
+
+    @Test
+    void should_extract_local_archive_once() throws IOException {
+        MongodArtifactCache tested = new MongodArtifactCache(temp.resolve("artifacts"), cache);
+        assertThat(tested.checkDistribution(distribution)).isTrue();
+
+        IExtractedFileSet actual = tested.extractFileSet(distribution);
+        assertThat(actual.executable()).hasBinaryContent(MONGOD);
+        assertThat(actual.executable().toPath()).startsWith(cache);
+        assertThat(actual.baseDirIsGenerated()).isFalse();
+
+        Files.delete(archive);
+        IExtractedFileSet cached = new MongodArtifactCache(temp.resolve("artifacts"), cache)
+                .extractFileSet(distribution);
+        assertThat(cached.executable()).isEqualTo(actual.executable());
+
+        tested.removeFileSet(distribution, cached);
+        assertThat(cached.executable()).exists();
+    }
+
+    @Test
+    void should_extract_again_corrupted_binary() throws IOException {
+        MongodArtifactCache tested = new MongodArtifactCache(archive, cache);
+        IExtractedFileSet extracted = tested.extractFileSet(distribution);
+        Files.write(extracted.executable().toPath(), new byte[]{0});
+
+        IExtractedFileSet actual = tested.extractFileSet(distribution);
+        assertThat(actual.executable()).hasBinaryContent(MONGOD);
+    }
+
+    @Test
+    void should_refuse_archive_with_wrong_checksum() throws IOException {
+        try (OutputStream out = Files.newOutputStream(archive.resolveSibling(archive.getFileName() + ".sha256"))) {
+            out.write("0000  mongodb.tgz\n".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        MongodArtifactCache tested = new MongodArtifactCache(archive, cache);
+        assertThatThrownBy(() -> tested.extractFileSet(distribution))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Checksum mismatch");
+    }
+}
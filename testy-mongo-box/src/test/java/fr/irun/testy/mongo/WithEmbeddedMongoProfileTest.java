@@ -0,0 +1,32 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableMap;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithEmbeddedMongoProfileTest {
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static WithEmbeddedMongo wMongo = WithEmbeddedMongo.builder()
+            .setProfile(MongodProfile.EPHEMERAL)
+            .build();
+
+    @Test
+    void should_store_data_in_memory(ReactiveMongoTemplate tested) {
+        final Document serverStatus = tested.executeCommand("{serverStatus: 1}").block();
+        assertThat(serverStatus).isNotNull();
+        assertThat(serverStatus.get("storageEngine", Document.class).getString("name")).isEqualTo("ephemeralForTest");
+
+        final Document toInsert = new Document(ImmutableMap.of(
+                "foo", "oof",
+                "bar", "rab"
+        ));
+        tested.insert(toInsert, "ephemeral").block();
+        assertThat(tested.findAll(Document.class, "ephemeral").count().block()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package fr.irun.testy.mongo;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WithEmbeddedMongoQueryPlansTest {
+    private static final String COLLECTION = "jedi";
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static WithEmbeddedMongo wMongo = WithEmbeddedMongo.builder()
+            .captureQueryPlans(true)
+            .build();
+
+    @Test
+    void should_capture_query_plans(ReactiveMongoTemplate mongoTemplate, MongoQueryPlans tested) {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index("name", Sort.Direction.ASC)).block();
+        mongoTemplate.insert(new Document("name", "Obiwan").append("age", 57), COLLECTION).block();
+
+        mongoTemplate.find(Query.query(Criteria.where("name").is("Obiwan")), Document.class, COLLECTION)
+                .blockLast();
+        tested.assertNoCollectionScan();
+        tested.assertMaxKeysExaminedRatio(1);
+
+        mongoTemplate.find(Query.query(Criteria.where("age").is(57)), Document.class, COLLECTION).blockLast();
+        List<MongoQueryPlans.QueryPlan> plans = tested.plans();
+        assertThat(plans).extracting(MongoQueryPlans.QueryPlan::collection).containsOnly(COLLECTION);
+        assertThatThrownBy(tested::assertNoCollectionScan)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("filter: {age: ?}")
+                .hasMessageContaining("COLLSCAN");
+    }
+
+    @Test
+    void should_not_report_indexed_aggregation_sort(ReactiveMongoTemplate mongoTemplate, MongoQueryPlans tested) {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index("name", Sort.Direction.ASC)).block();
+        mongoTemplate.insert(new Document("name", "Obiwan").append("age", 57), COLLECTION).block();
+
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("name").is("Obiwan")),
+                Aggregation.sort(Sort.Direction.ASC, "name")), COLLECTION, Document.class)
+                .blockLast();
+
+        assertThat(tested.plans()).extracting(MongoQueryPlans.QueryPlan::operation).contains("aggregate");
+        tested.assertNoInMemorySort();
+    }
+
+    @Test
+    void should_report_unindexed_aggregation_sort(ReactiveMongoTemplate mongoTemplate, MongoQueryPlans tested) {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index("name", Sort.Direction.ASC)).block();
+        mongoTemplate.insert(new Document("name", "Obiwan").append("age", 57), COLLECTION).block();
+
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("name").is("Obiwan")),
+                Aggregation.sort(Sort.Direction.ASC, "age")), COLLECTION, Document.class)
+                .blockLast();
+
+        assertThatThrownBy(tested::assertNoInMemorySort)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("aggregate")
+                .hasMessageContaining("$sort: {age: ?}");
+    }
+}
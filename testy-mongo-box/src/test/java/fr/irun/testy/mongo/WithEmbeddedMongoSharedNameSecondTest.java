@@ -0,0 +1,38 @@
+package fr.irun.testy.mongo;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.mongo.sample.DocumentDataSet;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Run in the same JVM as {@link WithEmbeddedMongoSharedNameFirstTest}, on the same database of the shared mongod. The
+ * fixtures of a class must not be lost by the drop of the database at the end of the other.
+ */
+class WithEmbeddedMongoSharedNameSecondTest {
+    private static final String DATABASE_NAME = "shared_reused";
+    private static final String COLLECTION = "documents";
+
+    private static final WithEmbeddedMongo wMongo = WithEmbeddedMongo.builder()
+            .sharedServer(true)
+            .setDatabaseName(DATABASE_NAME)
+            .build();
+    private static final WithMongoData wMongoData = WithMongoData.builder(wMongo)
+            .addDataset(COLLECTION, new DocumentDataSet())
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(wMongo)
+            .append(wMongoData)
+            .register();
+
+    @Test
+    void should_keep_fixtures_of_reused_database(ReactiveMongoTemplate mongoTemplate) {
+        assertThat(mongoTemplate.findAll(Document.class, COLLECTION).count().block()).isEqualTo(2);
+    }
+}
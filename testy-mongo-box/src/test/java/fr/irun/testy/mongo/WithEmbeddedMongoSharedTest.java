@@ -0,0 +1,32 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithEmbeddedMongoSharedTest {
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static WithEmbeddedMongo wMongo = WithEmbeddedMongo.builder()
+            .sharedServer(true)
+            .build();
+
+    @Test
+    void should_use_own_database_on_shared_server(ReactiveMongoTemplate tested, @MongoDatabaseName String dbName) {
+        assertThat(tested.getMongoDatabase().map(MongoDatabase::getName).block()).isEqualTo(dbName);
+
+        final Document toInsert = new Document(ImmutableMap.of(
+                "foo", "oof",
+                "bar", "rab"
+        ));
+        final Document inserted = tested.insert(toInsert, "shared").block();
+        assertThat(inserted).isEqualTo(toInsert);
+        assertThat(tested.findAll(Document.class, "shared").count().block()).isEqualTo(1);
+    }
+}
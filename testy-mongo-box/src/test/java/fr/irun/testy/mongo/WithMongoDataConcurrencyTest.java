@@ -0,0 +1,52 @@
+package fr.irun.testy.mongo;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.mongo.sample.DocumentDataSet;
+import org.bson.Document;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithMongoDataConcurrencyTest {
+
+    private static final List<String> COLLECTIONS = IntStream.range(0, 12)
+            .mapToObj(i -> "collection" + i)
+            .collect(Collectors.toList());
+
+    private static final WithEmbeddedMongo WITH_EMBEDDED_MONGO = WithEmbeddedMongo.builder()
+            .build();
+    private static final WithMongoData WITH_MONGO_DATA = buildMongoData();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(WITH_EMBEDDED_MONGO)
+            .append(WITH_MONGO_DATA)
+            .register();
+
+    private static WithMongoData buildMongoData() {
+        WithMongoData.WithMongoDataBuilder builder = WithMongoData.builder(WITH_EMBEDDED_MONGO)
+                .setConcurrency(4);
+        COLLECTIONS.forEach(collection -> builder.addDataset(collection, new DocumentDataSet()));
+        return builder.build();
+    }
+
+    @RepeatedTest(2)
+    void should_reset_all_collections(ReactiveMongoTemplate mongoTemplate) {
+        mongoTemplate.insert(new Document("_id", "dirty"), COLLECTIONS.get(0)).block();
+
+        List<Long> actual = Flux.fromIterable(COLLECTIONS)
+                .concatMap(collection -> mongoTemplate.findAll(Document.class, collection).count())
+                .collectList()
+                .block();
+
+        assertThat(actual.get(0)).isEqualTo(3L);
+        assertThat(actual.subList(1, actual.size())).hasSize(COLLECTIONS.size() - 1).containsOnly(2L);
+    }
+}
@@ -0,0 +1,55 @@
+package fr.irun.testy.mongo;
+
+import com.google.common.collect.ImmutableList;
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.mongo.sample.DocumentDataSet;
+import org.bson.Document;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithMongoDataMultipleTest {
+
+    private static final String FIRST_COLLECTION = "first";
+    private static final String SECOND_COLLECTION = "second";
+
+    private static final WithEmbeddedMongo WITH_EMBEDDED_MONGO = WithEmbeddedMongo.builder()
+            .build();
+    private static final WithMongoData WITH_FIRST_DATA = WithMongoData.builder(WITH_EMBEDDED_MONGO)
+            .addDataset(FIRST_COLLECTION, new DocumentDataSet())
+            .build();
+    private static final WithMongoData WITH_SECOND_DATA = WithMongoData.builder(WITH_EMBEDDED_MONGO)
+            .addDataset(SECOND_COLLECTION, () -> ImmutableList.of(DocumentDataSet.DOCUMENT_0))
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(WITH_EMBEDDED_MONGO)
+            .append(WITH_FIRST_DATA)
+            .append(WITH_SECOND_DATA)
+            .register();
+
+    @RepeatedTest(2)
+    void should_fill_collections_of_each_extension(ReactiveMongoTemplate mongoTemplate) {
+        assertCounts(mongoTemplate);
+    }
+
+    @Nested
+    class NestedTest {
+        @RepeatedTest(2)
+        void should_fill_collections_of_each_extension(ReactiveMongoTemplate mongoTemplate) {
+            assertCounts(mongoTemplate);
+        }
+    }
+
+    private static void assertCounts(ReactiveMongoTemplate mongoTemplate) {
+        assertThat(mongoTemplate.findAll(Document.class, FIRST_COLLECTION).count().block()).isEqualTo(2L);
+        assertThat(mongoTemplate.findAll(Document.class, SECOND_COLLECTION).count().block()).isEqualTo(1L);
+
+        mongoTemplate.insert(new Document("_id", "dirty"), FIRST_COLLECTION).block();
+        mongoTemplate.insert(new Document("_id", "dirty"), SECOND_COLLECTION).block();
+    }
+}
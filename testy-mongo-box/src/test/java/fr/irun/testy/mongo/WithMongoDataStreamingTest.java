@@ -0,0 +1,38 @@
+package fr.irun.testy.mongo;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithMongoDataStreamingTest {
+
+    private static final String COLLECTION = "clones";
+    private static final int COUNT = 10_000;
+
+    private static final WithEmbeddedMongo WITH_EMBEDDED_MONGO = WithEmbeddedMongo.builder()
+            .build();
+    private static final WithMongoData WITH_MONGO_DATA = WithMongoData.builder(WITH_EMBEDDED_MONGO)
+            .addStreamingDataset(COLLECTION, () -> Flux.range(0, COUNT)
+                    .map(i -> new Document("_id", i).append("name", "CT-" + i)))
+            .setBatchSize(500)
+            .setMaxBatchesInFlight(2)
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(WITH_EMBEDDED_MONGO)
+            .append(WITH_MONGO_DATA)
+            .register();
+
+    @Test
+    void should_have_inserted_streamed_data(ReactiveMongoTemplate mongoTemplate) {
+        assertThat(mongoTemplate.findAll(Document.class, COLLECTION).count().block()).isEqualTo(COUNT);
+        assertThat(mongoTemplate.findById(42, Document.class, COLLECTION).block())
+                .containsEntry("name", "CT-42");
+    }
+}
@@ -5,6 +5,8 @@ import fr.irun.testy.core.extensions.ChainedExtension;
 import fr.irun.testy.core.extensions.WithObjectMapper;
 import fr.irun.testy.mongo.sample.DocumentDataSet;
 import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -19,6 +21,7 @@ class WithMongoDataTest {
 
     private static final String COLLECTION_0 = "firstCollection";
     private static final String COLLECTION_1 = "secondCollection";
+    private static final String COLLECTION_GENERATED_IDS = "generatedIdsCollection";
 
     private static final WithEmbeddedMongo WITH_EMBEDDED_MONGO = WithEmbeddedMongo.builder()
             .build();
@@ -28,6 +31,12 @@ class WithMongoDataTest {
             .withObjectMapper(WITH_OBJECT_MAPPER)
             .addDataset(COLLECTION_0, new DocumentDataSet())
             .addDataset(COLLECTION_1, new DocumentDataSet())
+            .addDataset(COLLECTION_GENERATED_IDS, new DocumentDataSet() {
+                @Override
+                public boolean generateIds() {
+                    return true;
+                }
+            })
             .build();
 
     @RegisterExtension
@@ -57,4 +66,16 @@ class WithMongoDataTest {
         assertThat(actual).containsExactly(DocumentDataSet.DOCUMENT_0, DocumentDataSet.DOCUMENT_1);
     }
 
+    @Test
+    void should_have_inserted_data_with_generated_ids() {
+        final List<Document> actual = mongoTemplate.findAll(Document.class, COLLECTION_GENERATED_IDS)
+                .collectList()
+                .block();
+
+        assertThat(actual).hasSize(2);
+        assertThat(actual).allSatisfy(document -> assertThat(document.get("_id")).isInstanceOf(ObjectId.class));
+        assertThat(actual).extracting(document -> document.getString("name"))
+                .containsExactly(DocumentDataSet.DOCUMENT_0.getString("name"), DocumentDataSet.DOCUMENT_1.getString("name"));
+    }
+
 }
\ No newline at end of file
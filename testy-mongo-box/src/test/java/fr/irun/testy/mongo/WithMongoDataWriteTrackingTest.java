@@ -0,0 +1,73 @@
+package fr.irun.testy.mongo;
+
+import fr.irun.testy.core.extensions.ChainedExtension;
+import fr.irun.testy.mongo.sample.DocumentDataSet;
+import org.bson.Document;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WithMongoDataWriteTrackingTest {
+
+    private static final String WRITTEN_COLLECTION = "written";
+    private static final String READ_COLLECTION = "read";
+
+    private static final WithEmbeddedMongo WITH_EMBEDDED_MONGO = WithEmbeddedMongo.builder()
+            .build();
+    private static final WithMongoData WITH_MONGO_DATA = WithMongoData.builder(WITH_EMBEDDED_MONGO)
+            .addDataset(WRITTEN_COLLECTION, new DocumentDataSet())
+            .addDataset(READ_COLLECTION, new DocumentDataSet() {
+                @Override
+                public boolean generateIds() {
+                    return true;
+                }
+            })
+            .build();
+
+    @RegisterExtension
+    @SuppressWarnings("unused")
+    static final ChainedExtension chain = ChainedExtension.outer(WITH_EMBEDDED_MONGO)
+            .append(WITH_MONGO_DATA)
+            .register();
+
+    private static List<Object> previousReadIds;
+
+    @RepeatedTest(3)
+    void should_reset_only_written_collections(ReactiveMongoTemplate mongoTemplate, RepetitionInfo repetition) {
+        List<Object> readIds = mongoTemplate.findAll(Document.class, READ_COLLECTION)
+                .map(document -> document.get("_id"))
+                .collectList()
+                .block();
+        assertThat(readIds).hasSize(2);
+        if (repetition.getCurrentRepetition() > 1) {
+            assertThat(readIds).as("Generated ids of the collection only read")
+                    .containsExactlyInAnyOrderElementsOf(previousReadIds);
+        }
+        previousReadIds = readIds;
+
+        assertThat(mongoTemplate.findAll(Document.class, WRITTEN_COLLECTION).count().block()).isEqualTo(2L);
+        mongoTemplate.insert(new Document("_id", "dirty"), WRITTEN_COLLECTION).block();
+    }
+
+    @RepeatedTest(3)
+    void should_keep_indexes_on_reset(ReactiveMongoTemplate mongoTemplate, RepetitionInfo repetition) {
+        List<String> indexes = mongoTemplate.indexOps(WRITTEN_COLLECTION).getIndexInfo()
+                .map(IndexInfo::getName)
+                .collectList()
+                .block();
+        if (repetition.getCurrentRepetition() > 1) {
+            assertThat(indexes).contains("name");
+        }
+
+        mongoTemplate.indexOps(WRITTEN_COLLECTION).ensureIndex(new Index("name", Sort.Direction.ASC).named("name")).block();
+        mongoTemplate.insert(new Document("_id", "dirty"), WRITTEN_COLLECTION).block();
+    }
+}